@@ -0,0 +1,40 @@
+/**
+ * Breadth first search over the int ids of an IndexedAdjacencyGraph, the same as BfsEngine does over a CsrGraph
+ * A tree filled by a search must have been made after the graph's last vertex was added, so it has room for them all
+ * The engine itself keeps no state, so one engine can serve several threads, as long as the graph isn't changing
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class AdjacencyBfs<V,E> implements PathSearch<V,E> {
+	private final IndexedAdjacencyGraph<V,E> g;
+
+	public AdjacencyBfs(IndexedAdjacencyGraph<V,E> g) {
+		this.g = g;
+	}
+
+	public IndexedAdjacencyGraph<V,E> graph() {
+		return g;
+	}
+
+	public ShortestPathTree<V,E> bfs(V source) {
+		ShortestPathTree<V,E> tree = new ShortestPathTree<V,E>(g);
+		bfs(g.indexOf(source), tree);
+		return tree;
+	}
+
+	public void bfs(int source, ShortestPathTree<V,E> tree) {
+		int[] queue = tree.order();
+		tree.reset(source);
+		for (int head = 0; head < tree.numVertices(); head++) {	// the tree's visit order is the queue
+			int u = queue[head];
+			int[] adjacent = g.neighbors(u);
+			for (int k = 0; k < g.degree(u); k++) {
+				int v = adjacent[k];
+				if (tree.distanceOf(v) < 0) tree.discover(v, u);	// not yet reached, so reached from u
+			}
+		}
+	}
+}
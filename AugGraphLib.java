@@ -3,6 +3,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 /**
  * Library for graph analysis
  * 
@@ -22,6 +23,8 @@ public class AugGraphLib {
 	 * 			    null if start isn't in graph
 	 */
 	public static <V,E> List<V> randomWalk(Graph<V,E> g, V start, int steps) {
+		// A frozen graph can index straight into its neighbors, so no need to iterate to the chosen one
+		if (g instanceof CsrGraph) return new RandomWalker<V,E>((CsrGraph<V,E>) g).walk(start, steps);
 		// check if start is in the graph and steps > 0
 		if (!g.hasVertex(start) || steps < 0) return null;
 		
@@ -32,7 +35,7 @@ public class AugGraphLib {
 			if (g.outDegree(current) == 0) return path;	
 			else {
 				// Choose a random index 
-				int random = (int)(g.outDegree(current) * Math.random());
+				int random = ThreadLocalRandom.current().nextInt(g.outDegree(current));	// the thread's own generator, not a shared one
 				Iterator<V> iter = g.outNeighbors(current).iterator();
 				V next = iter.next();
 				// Iterate this many times
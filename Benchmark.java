@@ -0,0 +1,175 @@
+import java.io.*;
+import java.lang.management.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Micro-benchmarks for loading, building and searching the co-star graph, and for the game's commands, on the
+ * bundled inputs or on SyntheticInputs at some multiple of their size
+ * Each benchmark is run a few times to warm up, then timed over a number of iterations; for each it reports
+ * the mean, fastest and slowest time per run, the bytes allocated per run by the calling thread (work done on
+ * other threads, as in the parallel builds, isn't counted), and the collections run while it was timed
+ * The AdjacencyMapGraph (hash map) versions are measured alongside the compact ones, as the baseline
+ *
+ * Usage: java Benchmark [-scale <x>] [-warmup <n>] [-iterations <n>] [-only <name prefix>]
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class Benchmark {
+	private final int warmup, iterations;
+	private final String only;			// run only benchmarks whose names start with this, if not null
+	private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private Object sink;				// keeps each result reachable, so the work can't be optimized away
+
+	/**
+	 * A piece of work to time
+	 */
+	private interface Task {
+		Object run() throws Exception;
+	}
+
+	public Benchmark(int warmup, int iterations, String only) {
+		this.warmup = warmup;
+		this.iterations = iterations;
+		this.only = only;
+	}
+
+	/**
+	 * Warms up, times and reports one benchmark
+	 */
+	private void measure(String name, Task task) throws Exception {
+		if (only != null && !name.startsWith(only)) return;
+		for (int i = 0; i < warmup; i++) sink = task.run();
+		long total = 0, fastest = Long.MAX_VALUE, slowest = 0;
+		long gcCount = -gcCount(), gcTime = -gcTime();
+		long allocated = -threads.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < iterations; i++) {
+			long start = System.nanoTime();
+			sink = task.run();
+			long time = System.nanoTime() - start;
+			total += time;
+			fastest = Math.min(fastest, time);
+			slowest = Math.max(slowest, time);
+		}
+		allocated += threads.getCurrentThreadAllocatedBytes();
+		gcCount += gcCount();
+		gcTime += gcTime();
+		System.out.println(String.format("%-40s %12.3f ms/op  (%.3f .. %.3f)  %12.1f KB/op  %4d GCs (%d ms)",
+				name, total / 1e6 / iterations, fastest / 1e6, slowest / 1e6, allocated / 1024.0 / iterations, gcCount, gcTime));
+	}
+
+	/** Collections so far, over all collectors */
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) count += Math.max(0, gc.getCollectionCount());
+		return count;
+	}
+
+	/** Milliseconds spent collecting so far, over all collectors */
+	private static long gcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) time += Math.max(0, gc.getCollectionTime());
+		return time;
+	}
+
+	/**
+	 * Runs every benchmark over the input files in a directory
+	 */
+	public void run(String dir) throws Exception {
+		String movies = dir + "/movies.txt", actors = dir + "/actors.txt", movieActors = dir + "/movie-actors.txt";
+		long bytes = Files.size(Paths.get(movies)) + Files.size(Paths.get(actors)) + Files.size(Paths.get(movieActors));
+		System.out.println("Inputs: " + dir + " (" + bytes / 1024 + " KB)");
+
+		// Parsing the input files into maps
+		measure("parse id2Name actors", () -> GraphLib.id2Name(actors));
+		measure("parse id2Name movies", () -> GraphLib.id2Name(movies));
+		Map<String,String> id2Actor = GraphLib.id2Name(actors), id2Movie = GraphLib.id2Name(movies);
+		measure("parse movie2Actors", () -> GraphLib.movie2Actors(movieActors, id2Actor, id2Movie));
+		Map<String,List<String>> movie2Actors = GraphLib.movie2Actors(movieActors, id2Actor, id2Movie);
+
+		// Building the graph, from the maps or straight from the files
+		measure("build AdjacencyMapGraph", () -> GraphLib.buildGraph(id2Actor, movie2Actors));
+		measure("build CsrGraph from maps", () -> GraphLib.buildCsrGraph(id2Actor, movie2Actors));
+		measure("load CsrGraph", () -> GraphLib.loadCsrGraph(movies, actors, movieActors));
+		measure("load BipartiteGraph", () -> GraphLib.loadBipartiteGraph(movies, actors, movieActors));
+		Graph<String,Set<String>> hashGraph = GraphLib.buildGraph(id2Actor, movie2Actors);
+		CsrGraph<String,Set<String>> csr = GraphLib.loadCsrGraph(movies, actors, movieActors);
+		BipartiteGraph<String,String> bipartite = GraphLib.loadBipartiteGraph(movies, actors, movieActors);
+
+		// Searching from the biggest hub, and from an actor with the fewest co-stars in the hub's component
+		Components components = Components.of(csr);
+		int hub = 0, fringe = -1;
+		for (int id = 0; id < csr.numVertices(); id++) {
+			if (csr.degree(id) > csr.degree(hub)) hub = id;
+		}
+		for (int id = 0; id < csr.numVertices(); id++) {
+			if (components.connected(id, hub) && (fringe < 0 || csr.degree(id) < csr.degree(fringe))) fringe = id;
+		}
+		List<PathSearch<String,Set<String>>> engines = new ArrayList<PathSearch<String,Set<String>>>();
+		engines.add(new BfsEngine<String,Set<String>>(csr));
+		engines.add(new DirectionOptimizingBfs<String,Set<String>>(csr));
+		engines.add(new BipartiteBfs<String,String>(bipartite));
+		for (int source : new int[] { hub, fringe }) {
+			String actor = csr.vertexAt(source), which = source == hub ? "hub" : "fringe";
+			measure("bfs " + which + " AdjacencyMapGraph", () -> GraphLib.bfs(hashGraph, actor));
+			for (PathSearch<String,Set<String>> engine : engines) {
+				ShortestPathTree<String,Set<String>> tree = new ShortestPathTree<String,Set<String>>(engine.graph());
+				int id = engine.graph().indexOf(actor);
+				measure("bfs " + which + " " + engine.getClass().getSimpleName(), () -> {
+					engine.bfs(id, tree);
+					return tree;
+				});
+			}
+		}
+		int[] sources = new int[Math.min(csr.numVertices(), 4096)];
+		for (int i = 0; i < sources.length; i++) sources[i] = i;
+		measure("bfs " + sources.length + " sources MultiSourceBfs", () -> new MultiSourceBfs<String,Set<String>>(csr).search(sources, 1));
+
+		// The game's commands, centered on Kevin Bacon, with the indexes they use already built
+		Path indexFile = Files.createTempFile("benchmark", ".idx");
+		try {
+			GameUniverse universe = new GameUniverse(new BfsEngine<String,Set<String>>(csr), GraphLib.contentHash(movies, actors, movieActors), indexFile.toString(), false, 0.05, 2000);
+			GameSession session = new GameSession(universe);
+			PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+			try (GameUniverse.Version version = universe.pin()) {
+				version.index();
+				version.degrees();
+			}
+			for (String command : new String[] { "c 10", "c -10", "d 5 9", "s 1 2", "i", "p " + csr.vertexAt(fringe), "u " + csr.vertexAt(hub) }) {
+				measure("command " + command, () -> session.execute(command, out));
+			}
+		}
+		finally {
+			Files.deleteIfExists(indexFile);
+		}
+	}
+
+	/**
+	 * The value following a command-line option, or a default if the option isn't given
+	 */
+	private static String option(String[] args, String name, String otherwise) {
+		for (int i = 0; i + 1 < args.length; i++) {
+			if (args[i].equals(name)) return args[i + 1];
+		}
+		return otherwise;
+	}
+
+	public static void main(String[] args) throws Exception {
+		double scale = Double.parseDouble(option(args, "-scale", "0"));
+		Benchmark benchmark = new Benchmark(Integer.parseInt(option(args, "-warmup", "3")), Integer.parseInt(option(args, "-iterations", "10")), option(args, "-only", null));
+		if (scale <= 0) {	// the bundled data set
+			benchmark.run("inputs");
+			return;
+		}
+		// Made-up inputs at that multiple of the bundled size, in a scratch directory
+		Path dir = Files.createTempDirectory("synthetic");
+		try {
+			SyntheticInputs.generate(dir.toString(), scale, 1);
+			benchmark.run(dir.toString());
+		}
+		finally {
+			for (String name : new String[] { "movies.txt", "actors.txt", "movie-actors.txt" }) Files.deleteIfExists(dir.resolve(name));
+			Files.deleteIfExists(dir);
+		}
+	}
+}
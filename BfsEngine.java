@@ -0,0 +1,51 @@
+/**
+ * Breadth first search over the int ids of a CsrGraph
+ * Searches fill a ShortestPathTree, whose arrays (including the queue) can be reused from one search to the next,
+ * so that repeated searches from different centers allocate nothing
+ * The engine itself keeps no state, so one engine can serve several threads
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class BfsEngine<V,E> implements PathSearch<V,E> {
+	private final CsrGraph<V,E> g;
+
+	public BfsEngine(CsrGraph<V,E> g) {
+		this.g = g;
+	}
+
+	public CsrGraph<V,E> graph() {
+		return g;
+	}
+
+	/**
+	 * Searches from a vertex into a new tree
+	 * @param source	starting vertex (assumed to be in graph)
+	 * @return			shortest path tree rooted at source
+	 */
+	public ShortestPathTree<V,E> bfs(V source) {
+		ShortestPathTree<V,E> tree = new ShortestPathTree<V,E>(g);
+		bfs(g.indexOf(source), tree);
+		return tree;
+	}
+
+	/**
+	 * Searches from a vertex id, overwriting a tree built for this graph
+	 * @param source	starting vertex id
+	 * @param tree		tree to fill
+	 */
+	public void bfs(int source, ShortestPathTree<V,E> tree) {
+		int[] offsets = g.offsets(), targets = g.targets();
+		int[] queue = tree.order();
+		tree.reset(source);
+		for (int head = 0; head < tree.numVertices(); head++) {	// the tree's visit order is the queue
+			int u = queue[head];
+			for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+				int v = targets[k];
+				if (tree.distanceOf(v) < 0) tree.discover(v, u);	// not yet reached, so reached from u
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+import java.util.*;
+
+/**
+ * Point-to-point shortest paths over the int ids of a CsrGraph, by breadth first search from both ends at once
+ * Each round expands one whole level of whichever frontier is smaller, and the search stops at the end of the
+ * first round in which the two sides meet, so a typical query touches only the neighborhoods of the two ends
+ * Each thread gets its own scratch arrays, marked with a per-search stamp so they never need clearing
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class BidirectionalSearch<V,E> {
+	private final CsrGraph<V,E> g;
+	private final ThreadLocal<Scratch> scratch;
+
+	/**
+	 * One thread's search state, for both sides (0: from the source, 1: from the target)
+	 */
+	private static class Scratch {
+		final int[][] seen, parent, distance, queue;		// seen[side][id] == stamp if that side has reached id
+		int stamp = 0;
+		int touched = 0;						// vertices reached by the last search, over both sides
+
+		Scratch(int n) {
+			seen = new int[2][n];
+			parent = new int[2][n];
+			distance = new int[2][n];
+			queue = new int[2][n];
+		}
+	}
+
+	public BidirectionalSearch(CsrGraph<V,E> g) {
+		this.g = g;
+		scratch = ThreadLocal.withInitial(() -> new Scratch(g.numVertices()));
+	}
+
+	/**
+	 * A shortest path between two vertices
+	 * @return		list of vertices from source to target, each with an edge to the next;
+	 * 				empty if either vertex isn't in the graph or there is no path
+	 */
+	public List<V> path(V source, V target) {
+		List<V> path = new ArrayList<V>();
+		int s = g.indexOf(source), t = g.indexOf(target);
+		if (s < 0 || t < 0) return path;
+		for (int id : pathIds(s, t)) path.add(g.vertexAt(id));
+		return path;
+	}
+
+	/**
+	 * A shortest path between two vertex ids
+	 * @return		ids from s to t, each with an edge to the next; empty if there is no path
+	 */
+	public int[] pathIds(int s, int t) {
+		Scratch x = scratch.get();
+		int stamp = ++x.stamp;
+		int[] offsets = g.offsets(), targets = g.targets();
+		int[] head = new int[2], tail = new int[2], levelEnd = new int[2];
+		for (int side = 0; side < 2; side++) {
+			int start = side == 0 ? s : t;
+			x.seen[side][start] = stamp;
+			x.parent[side][start] = -1;
+			x.distance[side][start] = 0;
+			x.queue[side][0] = start;
+			tail[side] = 1;
+			levelEnd[side] = 1;
+		}
+		x.touched = s == t ? 1 : 2;
+		if (s == t) return new int[] { s };
+
+		int best = Integer.MAX_VALUE, meetFrom = -1, meetTo = -1;		// shortest meeting found: edge meetFrom (side 0) - meetTo (side 1)
+		while (head[0] < tail[0] && head[1] < tail[1]) {
+			// Expand the smaller frontier by one whole level
+			int side = levelEnd[0] - head[0] <= levelEnd[1] - head[1] ? 0 : 1, other = 1 - side;
+			int[] seen = x.seen[side], parent = x.parent[side], distance = x.distance[side], queue = x.queue[side];
+			for (; head[side] < levelEnd[side]; head[side]++) {
+				int u = queue[head[side]];
+				for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+					int v = targets[k];
+					if (x.seen[other][v] == stamp) {	// the sides meet along u - v
+						int length = distance[u] + 1 + x.distance[other][v];
+						if (length < best) {
+							best = length;
+							meetFrom = side == 0 ? u : v;
+							meetTo = side == 0 ? v : u;
+						}
+					}
+					if (seen[v] != stamp) {
+						seen[v] = stamp;
+						parent[v] = u;
+						distance[v] = distance[u] + 1;
+						queue[tail[side]++] = v;
+						x.touched++;
+					}
+				}
+			}
+			levelEnd[side] = tail[side];
+			if (best != Integer.MAX_VALUE) break;	// a meeting in this level can't be beaten by a later level
+		}
+		if (best == Integer.MAX_VALUE) return new int[0];
+
+		// Walk back from the meeting edge to both ends
+		int[] path = new int[best + 1];
+		int i = x.distance[0][meetFrom];
+		for (int v = meetFrom; v >= 0; v = x.parent[0][v]) path[i--] = v;	// fills path[0 .. distance from s]
+		i = x.distance[0][meetFrom] + 1;
+		for (int v = meetTo; v >= 0; v = x.parent[1][v]) path[i++] = v;
+		return path;
+	}
+
+	/**
+	 * How many vertices the calling thread's last search reached, from both sides together
+	 */
+	public int touched() {
+		return scratch.get().touched;
+	}
+}
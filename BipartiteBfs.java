@@ -0,0 +1,55 @@
+import java.util.Set;
+
+/**
+ * Breadth first search over a BipartiteGraph, alternating between actor and movie layers
+ * Each movie is expanded once, from the first actor reached who appeared in it, into all of its actors not yet
+ * reached; so the search costs time linear in the credits rather than in the co-star pairs
+ * The actor-to-actor distance recorded in the tree is half the actor-movie distance, i.e., the co-star distance
+ *
+ * @param <V>	the type of actors (vertices)
+ * @param <E>	the type of movies
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class BipartiteBfs<V,E> implements PathSearch<V, Set<E>> {
+	private final BipartiteGraph<V,E> g;
+	private final ThreadLocal<int[]> expanded;		// movie id -> number of the search that last expanded it, per thread
+	private final ThreadLocal<int[]> searches;		// number of searches run so far, per thread
+
+	public BipartiteBfs(BipartiteGraph<V,E> g) {
+		this.g = g;
+		expanded = ThreadLocal.withInitial(() -> new int[g.numMovies()]);
+		searches = ThreadLocal.withInitial(() -> new int[1]);
+	}
+
+	public BipartiteGraph<V,E> graph() {
+		return g;
+	}
+
+	public ShortestPathTree<V, Set<E>> bfs(V source) {
+		ShortestPathTree<V, Set<E>> tree = new ShortestPathTree<V, Set<E>>(g);
+		bfs(g.indexOf(source), tree);
+		return tree;
+	}
+
+	public void bfs(int source, ShortestPathTree<V, Set<E>> tree) {
+		int[] actorOffsets = g.actorOffsets(), actorMovies = g.actorMovies();
+		int[] movieOffsets = g.movieOffsets(), movieActors = g.movieActors();
+		int[] stamp = expanded.get();
+		int search = ++searches.get()[0];	// new stamp, so no need to clear the marks from the last search
+		int[] queue = tree.order();
+		tree.reset(source);
+		for (int head = 0; head < tree.numVertices(); head++) {	// the tree's visit order is the actor queue
+			int u = queue[head];
+			for (int k = actorOffsets[u]; k < actorOffsets[u + 1]; k++) {
+				int m = actorMovies[k];
+				if (stamp[m] == search) continue;	// movie already expanded from a closer (or equally close) actor
+				stamp[m] = search;
+				for (int j = movieOffsets[m]; j < movieOffsets[m + 1]; j++) {
+					int v = movieActors[j];
+					if (tree.distanceOf(v) < 0) tree.discover(v, u);	// two bipartite steps, one co-star step
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,216 @@
+import java.util.*;
+
+/**
+ * Actor-movie graph, storing only which actors appeared in which movies instead of an edge for every pair of
+ * co-stars, so a movie with k actors costs k entries rather than k(k-1) edges
+ * Both directions are kept in CSR form: each actor's movies, and each movie's actors, sorted by id
+ * It still presents the co-star graph through the Graph interface (vertices are actors, and two actors are
+ * adjacent if they share a movie, labeled by a MovieSet of the shared movies), working neighbors and labels out on
+ * demand; BipartiteBfs searches the actor-movie structure directly
+ *
+ * @param <V>	the type of actors (vertices)
+ * @param <E>	the type of movies
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class BipartiteGraph<V,E> implements IndexedGraph<V, Set<E>> {
+	protected final V[] actors;					// actor id -> actor
+	protected final E[] movies;					// movie id -> movie
+	protected final Map<V, Integer> ids;			// actor -> actor id
+	protected final int[] actorOffsets;			// movies of actor a: actorMovies[actorOffsets[a] .. actorOffsets[a+1]-1]
+	protected final int[] actorMovies;
+	protected final int[] movieOffsets;			// actors of movie m: movieActors[movieOffsets[m] .. movieOffsets[m+1]-1]
+	protected final int[] movieActors;
+
+	/**
+	 * Wraps already-built arrays (which are not copied, so must not be modified afterwards)
+	 */
+	public BipartiteGraph(V[] actors, E[] movies, int[] actorOffsets, int[] actorMovies, int[] movieOffsets, int[] movieActors) {
+		this.actors = actors;
+		this.movies = movies;
+		this.actorOffsets = actorOffsets;
+		this.actorMovies = actorMovies;
+		this.movieOffsets = movieOffsets;
+		this.movieActors = movieActors;
+		ids = new HashMap<V, Integer>(actors.length * 2);
+		for (int i = 0; i < actors.length; i++) ids.put(actors[i], i);
+	}
+
+	public int numVertices() {
+		return actors.length;
+	}
+
+	public int numEdges() {
+		// Co-star edges aren't stored, so count them on the fly
+		int n = 0;
+		for (int a = 0; a < actors.length; a++) n += costars(a).length;
+		return n;
+	}
+
+	public Iterable<V> vertices() {
+		return Collections.unmodifiableList(Arrays.asList(actors));
+	}
+
+	public boolean hasVertex(V v) {
+		return ids.containsKey(v);
+	}
+
+	public int outDegree(V v) {
+		return costars(id(v)).length;
+	}
+
+	public int inDegree(V v) {
+		return costars(id(v)).length;
+	}
+
+	public Iterable<V> outNeighbors(V v) {
+		List<V> neighbors = new ArrayList<V>();
+		for (int b : costars(id(v))) neighbors.add(actors[b]);
+		return neighbors;
+	}
+
+	public Iterable<V> inNeighbors(V v) {
+		return outNeighbors(v);
+	}
+
+	public boolean hasEdge(V u, V v) {
+		Integer j = ids.get(v);
+		return j != null && !j.equals(ids.get(u)) && sharedMovies(id(u), j).length > 0;
+	}
+
+	public Set<E> getLabel(V u, V v) {
+		if (!hasEdge(u, v)) return null;
+		return MovieSet.of(movies, sharedMovies(id(u), ids.get(v)));
+	}
+
+	public void insertVertex(V v) {
+		throw new UnsupportedOperationException("BipartiteGraph is immutable");
+	}
+
+	public void insertDirected(V u, V v, Set<E> e) {
+		throw new UnsupportedOperationException("BipartiteGraph is immutable");
+	}
+
+	public void insertUndirected(V u, V v, Set<E> e) {
+		throw new UnsupportedOperationException("BipartiteGraph is immutable");
+	}
+
+	public void removeVertex(V v) {
+		throw new UnsupportedOperationException("BipartiteGraph is immutable");
+	}
+
+	public void removeDirected(V u, V v) {
+		throw new UnsupportedOperationException("BipartiteGraph is immutable");
+	}
+
+	public void removeUndirected(V u, V v) {
+		throw new UnsupportedOperationException("BipartiteGraph is immutable");
+	}
+
+	public int indexOf(V v) {
+		Integer i = ids.get(v);
+		return i == null ? -1 : i;
+	}
+
+	public V vertexAt(int id) {
+		return actors[id];
+	}
+
+	/** Number of movies */
+	public int numMovies() {
+		return movies.length;
+	}
+
+	/** The movie with this id */
+	public E movieAt(int id) {
+		return movies[id];
+	}
+
+	/** The actor offsets array (shared, not a copy): actor a's movies are at actorOffsets[a] .. actorOffsets[a+1]-1 */
+	public int[] actorOffsets() {
+		return actorOffsets;
+	}
+
+	/** Movie ids by actor (shared, not a copy) */
+	public int[] actorMovies() {
+		return actorMovies;
+	}
+
+	/** The movie offsets array (shared, not a copy): movie m's actors are at movieOffsets[m] .. movieOffsets[m+1]-1 */
+	public int[] movieOffsets() {
+		return movieOffsets;
+	}
+
+	/** Actor ids by movie (shared, not a copy) */
+	public int[] movieActors() {
+		return movieActors;
+	}
+
+	/**
+	 * The ids of the distinct co-stars of an actor, sorted
+	 */
+	public int[] costars(int a) {
+		int count = 0;
+		for (int k = actorOffsets[a]; k < actorOffsets[a + 1]; k++) {
+			int m = actorMovies[k];
+			count += movieOffsets[m + 1] - movieOffsets[m];
+		}
+		int[] costars = new int[count];
+		count = 0;
+		for (int k = actorOffsets[a]; k < actorOffsets[a + 1]; k++) {
+			int m = actorMovies[k];
+			for (int j = movieOffsets[m]; j < movieOffsets[m + 1]; j++) costars[count++] = movieActors[j];
+		}
+		Arrays.sort(costars);
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (costars[i] != a && (distinct == 0 || costars[distinct - 1] != costars[i])) costars[distinct++] = costars[i];
+		}
+		return Arrays.copyOf(costars, distinct);
+	}
+
+	/**
+	 * The ids of the movies two actors both appeared in, by merging their sorted movie lists
+	 */
+	public int[] sharedMovies(int a, int b) {
+		int i = actorOffsets[a], j = actorOffsets[b];
+		int[] shared = new int[Math.min(actorOffsets[a + 1] - i, actorOffsets[b + 1] - j)];
+		int count = 0;
+		while (i < actorOffsets[a + 1] && j < actorOffsets[b + 1]) {
+			if (actorMovies[i] < actorMovies[j]) i++;
+			else if (actorMovies[i] > actorMovies[j]) j++;
+			else {
+				shared[count++] = actorMovies[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(shared, count);
+	}
+
+	/**
+	 * Looks up an actor's id, complaining if it isn't in the graph
+	 */
+	private int id(V v) {
+		Integer i = ids.get(v);
+		if (i == null) throw new IllegalArgumentException("No such vertex " + v);
+		return i;
+	}
+
+	/**
+	 * Returns a string representation of the actors and their movies.
+	 */
+	public String toString() {
+		StringBuilder s = new StringBuilder("Vertices: " + Arrays.toString(actors) + "\nMovies: {");
+		for (int a = 0; a < actors.length; a++) {
+			if (a > 0) s.append(", ");
+			s.append(actors[a]).append("=[");
+			for (int k = actorOffsets[a]; k < actorOffsets[a + 1]; k++) {
+				if (k > actorOffsets[a]) s.append(", ");
+				s.append(movies[actorMovies[k]]);
+			}
+			s.append(']');
+		}
+		return s.append('}').toString();
+	}
+}
@@ -0,0 +1,337 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ranks vertices as "centers of the universe" by their average separation, running one BFS per source
+ * The sources are split across a fixed pool of worker threads; each worker reuses its own scratch tree for
+ * every search and keeps only its best candidates in a bounded heap, and the heaps are merged at the end
+ * It can also search from every vertex to build a CentralityIndex, which can be saved and reused
+ * or, when searching from every vertex would take too long, estimate the separations from a sample of pivots
+ * Once a mutable graph has changed, an index is brought up to date by searching again from just the vertices whose
+ * records may have changed, found by searching from the ends of the edges that changed (see staleSources)
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class Centrality<V,E> {
+	private static final int CHUNK = 64;		// sources a worker claims at a time
+
+	private final IndexedGraph<V,E> g;
+	private final PathSearch<V,E> search;
+	private final int threads;
+
+	/**
+	 * @param search	how to search the graph whose vertices are to be ranked
+	 * @param threads	number of worker threads
+	 */
+	public Centrality(PathSearch<V,E> search, int threads) {
+		this.g = search.graph();
+		this.search = search;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Uses one worker thread per available processor
+	 */
+	public Centrality(PathSearch<V,E> search) {
+		this(search, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * The top (positive num: largest average separation first) or bottom (negative num: smallest first)
+	 * |num| of the sources; sources that reach no other vertex have no average separation and are left out
+	 * @param sources	vertex ids to rank
+	 * @param num		how many to return, and in which direction
+	 * @return			list of vertices, best first
+	 */
+	public List<V> rank(int[] sources, int num) {
+		List<V> res = new ArrayList<V>();
+		if (num == 0 || sources.length == 0) return res;
+		boolean largest = num > 0;
+		int k = Math.min(Math.abs(num), sources.length);
+
+		// Each worker keeps its own best candidates, which are then merged
+		List<BoundedHeap> heaps = forEachSource(sources, () -> new BoundedHeap(k, largest), (int source, ShortestPathTree<V,E> tree, BoundedHeap heap) -> {
+			if (tree.numVertices() > 1) heap.offer(source, tree.averageSeparation());
+		});
+		BoundedHeap merged = new BoundedHeap(k, largest);
+		for (BoundedHeap heap : heaps) merged.addAll(heap);
+		for (int id : merged.sorted()) res.add(g.vertexAt(id));
+		return res;
+	}
+
+	/**
+	 * Searches from every vertex, recording each one's reach, total distance and eccentricity in a new
+	 * (in-memory) index
+	 * @param key	content hash of the inputs the graph was built from, to store with the index
+	 */
+	public CentralityIndex index(byte[] key) {
+		return index(key, Components.of(g));
+	}
+
+	/**
+	 * Same, using already-labelled components: vertices alone or in pairs are recorded without a search
+	 * Over a CsrGraph the rest are searched 64 at a time by MultiSourceBfs, since only their totals are needed
+	 * @param key			content hash of the inputs the graph was built from, to store with the index
+	 * @param components	the graph's connected components
+	 */
+	public CentralityIndex index(byte[] key, Components components) {
+		return update(null, key, components, null);
+	}
+
+	/**
+	 * A new index for the graph as it is now, after changes that could only have changed the records of the
+	 * vertices marked stale (see staleSources), copying the old index's records for the rest and
+	 * searching only from the stale vertices, and from any vertex added since the old index was made
+	 * @param old			index for the graph before the changes, or null to search from every vertex
+	 * @param key			content hash of the inputs the graph was built from, to store with the index
+	 * @param components	the graph's connected components, as they are now
+	 * @param stale			ids of the vertices whose records must be redone (ignored if old is null)
+	 */
+	public CentralityIndex update(CentralityIndex old, byte[] key, Components components, BitSet stale) {
+		int n = g.numVertices();
+		CentralityIndex index = new CentralityIndex(key, CentralityIndex.fingerprint(g), n);
+		int[] sources = new int[n];
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			int size = components.componentSizeOf(i);
+			if (old != null && i < old.size() && !stale.get(i)) index.put(i, old.reached(i), old.totalDistance(i), old.eccentricity(i));
+			else if (size > 2) sources[count++] = i;
+			else index.put(i, size, size - 1, size - 1);	// reaches only itself, or itself and its one co-star
+		}
+		sources = Arrays.copyOf(sources, count);
+		if (g instanceof CsrGraph) {	// search 64 sources at a time, one bit each
+			MultiSourceBfs.Result totals = new MultiSourceBfs<V,E>((CsrGraph<V,E>) g).search(sources, threads);
+			for (int i = 0; i < count; i++) index.put(sources[i], totals.reached(i), totals.totalDistance(i), totals.eccentricity(i));
+			return index;
+		}
+		forEachSource(sources, () -> index, (int source, ShortestPathTree<V,E> tree, CentralityIndex idx) -> {
+			idx.put(source, tree.numVertices(), tree.totalDistance(), tree.eccentricity());	// workers write disjoint records
+		});
+		return index;
+	}
+
+	/**
+	 * The vertices whose records may differ between a graph and the same graph after some edges were added and
+	 * others removed, found by searching from the ends of those edges in the graph as it was, not from every vertex
+	 * From a source s, removing edges that lie on no shortest path from s (those whose ends are equally far from s)
+	 * changes no distance, and neither does adding edges between vertices at most a step apart (as seen from s);
+	 * so s is marked only if a removed edge has d(s,u) != d(s,v), or an added one has |d(s,u) - d(s,v)| >= 2, or
+	 * just one of its ends reachable
+	 * A shortcut in a graph where most actors are a few steps apart shortens paths from a great many sources, and
+	 * an edge that joins or splits components, or brings in a new actor, changes the reach of every vertex in them,
+	 * so on such a graph even a few changes can mark most of it
+	 * If there would be more than a quarter as many searches as vertices, every vertex is marked instead
+	 * @param before	the graph as it was
+	 * @param edges		the edges added or removed since, each u << 32 | v with u < v (ids past the end of before
+	 * 					are vertices added since); an edge that is in before was removed, any other was added
+	 */
+	public static BitSet staleSources(IndexedAdjacencyGraph<?,?> before, long[] edges) {
+		int n = before.numVertices();
+		BitSet stale = new BitSet(n);
+		Arrays.sort(edges);		// by lower end, so each lower end is searched from once
+		int searches = 0;
+		for (int i = 0; i < edges.length; i++) {
+			if (i == 0 || edges[i] >>> 32 != edges[i - 1] >>> 32) searches++;
+		}
+		if (searches + edges.length > n / 4) {
+			stale.set(0, n);
+			return stale;
+		}
+		int[] du = null;
+		for (int i = 0; i < edges.length; i++) {
+			int u = (int) (edges[i] >>> 32), v = (int) edges[i];
+			if (i == 0 || edges[i] >>> 32 != edges[i - 1] >>> 32) du = distances(before, u);
+			int[] dv = distances(before, v);
+			boolean removed = u < n && v < n && before.edgeIndex(u, v) >= 0;
+			for (int s = 0; s < n; s++) {
+				if (removed ? du[s] != dv[s] : (du[s] < 0) != (dv[s] < 0) || Math.abs(du[s] - dv[s]) >= 2) stale.set(s);
+			}
+		}
+		return stale;
+	}
+
+	/**
+	 * Distances from a source to every vertex (-1 if not reached, and for a source not in the graph)
+	 */
+	private static int[] distances(IndexedAdjacencyGraph<?,?> g, int source) {
+		int n = g.numVertices();
+		int[] distance = new int[n];
+		Arrays.fill(distance, -1);
+		if (source >= n) return distance;
+		int[] queue = new int[n];
+		distance[source] = 0;
+		queue[0] = source;
+		for (int head = 0, tail = 1; head < tail; head++) {
+			int x = queue[head];
+			int[] adjacent = g.neighbors(x);
+			for (int k = 0; k < g.degree(x); k++) {
+				int y = adjacent[k];
+				if (distance[y] < 0) {
+					distance[y] = distance[x] + 1;
+					queue[tail++] = y;
+				}
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * Estimates the average separations of the vertices of one connected component from BFS out of a random sample
+	 * of pivots, adding pivots in rounds until the estimates of the |num| vertices that would be ranked are all
+	 * within epsilon (95% confidence), the time budget is spent, or every vertex has been a pivot
+	 * Each round's size is picked from the rate so far, so as to finish about when the budget runs out, but is
+	 * never more than the pivots already used (so the sample at most doubles per round)
+	 * @param component		ids of all the vertices of a connected component
+	 * @param num			as for rank: how many vertices will be ranked, and in which direction
+	 * @param epsilon		target half width of the confidence intervals
+	 * @param budgetMillis	time budget, in milliseconds
+	 * @param seed			seed for picking the pivots
+	 */
+	public SeparationEstimate estimate(int[] component, int num, double epsilon, long budgetMillis, long seed) {
+		long start = System.nanoTime(), deadline = start + budgetMillis * 1000000L;
+		int n = component.length;
+		int[] pivots = component.clone();
+		SplittableRandom rnd = new SplittableRandom(seed);
+		SeparationEstimate estimate = new SeparationEstimate(g.numVertices(), n);
+		int used = 0, round = Math.min(n, 32);
+		while (true) {
+			// Draw this round's pivots without replacement, by carrying on a Fisher-Yates shuffle
+			for (int i = used; i < used + round; i++) {
+				int j = i + rnd.nextInt(n - i);
+				int t = pivots[i];
+				pivots[i] = pivots[j];
+				pivots[j] = t;
+			}
+			for (SeparationEstimate part : forEachSource(Arrays.copyOfRange(pivots, used, used + round), () -> new SeparationEstimate(g.numVertices(), n),
+					(int source, ShortestPathTree<V,E> tree, SeparationEstimate mine) -> mine.add(tree))) {
+				estimate.addAll(part);
+			}
+			used += round;
+			long now = System.nanoTime();
+			if (now >= deadline && used < n) return estimate.outOfTime(num);
+			if (used >= n || estimate.maxHalfWidth(estimate.rank(component, num)) <= epsilon) return estimate;
+			double perPivot = (double)(now - start)/used;
+			round = (int) Math.max(1, Math.min(Math.min(used, n - used), (deadline - now)/perPivot));
+		}
+	}
+
+	/**
+	 * What a worker does with the tree from each of its searches
+	 */
+	private interface Visitor<V,E,T> {
+		void visit(int source, ShortestPathTree<V,E> tree, T state);
+	}
+
+	/**
+	 * Runs a BFS from every source on the worker pool, handing each filled tree to the visitor along with
+	 * the worker's own state
+	 * @return		the states of the workers
+	 */
+	private <T> List<T> forEachSource(int[] sources, Supplier<T> state, Visitor<V,E,T> visitor) {
+		AtomicInteger next = new AtomicInteger();
+		int workers = Math.max(1, Math.min(threads, (sources.length + CHUNK - 1) / CHUNK));
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		List<Future<T>> futures = new ArrayList<Future<T>>();
+		try {
+			for (int w = 0; w < workers; w++) {
+				futures.add(pool.submit(() -> {
+					ShortestPathTree<V,E> scratch = new ShortestPathTree<V,E>(g);	// this worker's own search buffers
+					T mine = state.get();
+					int start;
+					while ((start = next.getAndAdd(CHUNK)) < sources.length) {	// claim the next chunk of sources
+						for (int i = start; i < Math.min(start + CHUNK, sources.length); i++) {
+							search.bfs(sources[i], scratch);
+							visitor.visit(sources[i], scratch, mine);
+						}
+					}
+					return mine;
+				}));
+			}
+			List<T> states = new ArrayList<T>();
+			for (Future<T> future : futures) states.add(future.get());
+			return states;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while searching from every source", e);
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("Searching from every source failed", e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Keeps the k best (id, value) pairs offered, as a binary heap with the worst kept pair at the root
+	 * Ties in value are broken by smaller id
+	 */
+	static class BoundedHeap {
+		private final int k;
+		private final boolean largest;		// whether larger values are better
+		private final int[] ids;
+		private final double[] values;
+		private int size = 0;
+
+		BoundedHeap(int k, boolean largest) {
+			this.k = k;
+			this.largest = largest;
+			ids = new int[k];
+			values = new double[k];
+		}
+
+		/** Whether (id1, v1) is worse than (id2, v2) */
+		private boolean worse(int id1, double v1, int id2, double v2) {
+			int c = Double.compare(v1, v2);
+			if (c == 0) return id1 > id2;
+			return largest ? c < 0 : c > 0;
+		}
+
+		void offer(int id, double value) {
+			if (k == 0) return;
+			if (size < k) {	// room left: add at the bottom and sift up
+				int i = size++;
+				while (i > 0 && worse(id, value, ids[(i - 1) / 2], values[(i - 1) / 2])) {
+					ids[i] = ids[(i - 1) / 2];
+					values[i] = values[(i - 1) / 2];
+					i = (i - 1) / 2;
+				}
+				ids[i] = id;
+				values[i] = value;
+			}
+			else if (worse(ids[0], values[0], id, value)) {	// better than the worst kept: replace the root and sift down
+				int i = 0;
+				while (2 * i + 1 < size) {
+					int c = 2 * i + 1;
+					if (c + 1 < size && worse(ids[c + 1], values[c + 1], ids[c], values[c])) c++;
+					if (!worse(ids[c], values[c], id, value)) break;
+					ids[i] = ids[c];
+					values[i] = values[c];
+					i = c;
+				}
+				ids[i] = id;
+				values[i] = value;
+			}
+		}
+
+		void addAll(BoundedHeap other) {
+			for (int i = 0; i < other.size; i++) offer(other.ids[i], other.values[i]);
+		}
+
+		/** The kept ids, best first */
+		int[] sorted() {
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++) order[i] = i;
+			Arrays.sort(order, (Integer a, Integer b) -> worse(ids[a], values[a], ids[b], values[b]) ? 1 : (a.equals(b) ? 0 : -1));
+			int[] res = new int[size];
+			for (int i = 0; i < size; i++) res[i] = ids[order[i]];
+			return res;
+		}
+	}
+}
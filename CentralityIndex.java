@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Per-vertex results of searching from every vertex of a graph (how many vertices each reaches, the total
+ * distance to them and the largest such distance), saved to disk so the c command needn't redo them
+ * The file is versioned and keyed by a content hash of the input files, plus a fingerprint of the graph's
+ * vertex numbering; a stale or foreign file is ignored and rebuilt
+ * File layout (big-endian): magic, version, 32-byte key, 32-byte fingerprint, vertex count, padding,
+ * then one 16-byte record per vertex id: reached (int), eccentricity (int), total distance (long)
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class CentralityIndex {
+	private static final int MAGIC = 0x4B424349;		// "KBCI"
+	private static final int VERSION = 1;
+	private static final int HASH = 32;				// bytes in a SHA-256 digest
+	private static final int HEADER = 4 + 4 + HASH + HASH + 4 + 4;
+	private static final int RECORD = 16;
+
+	private final ByteBuffer buf;		// header and records, either on the heap or mapped from the file
+	private final int n;
+
+	/**
+	 * Creates an empty in-memory index, to be filled by put
+	 * @param key			content hash of the inputs
+	 * @param fingerprint	fingerprint of the graph's vertex numbering
+	 * @param n				number of vertices
+	 */
+	CentralityIndex(byte[] key, byte[] fingerprint, int n) {
+		this.n = n;
+		buf = ByteBuffer.allocate(HEADER + n * RECORD);
+		buf.putInt(MAGIC).putInt(VERSION).put(key).put(fingerprint).putInt(n).putInt(0);
+	}
+
+	private CentralityIndex(ByteBuffer buf) {
+		this.buf = buf;
+		this.n = buf.getInt(4 + 4 + HASH + HASH);
+	}
+
+	/**
+	 * Records the results of the search from a vertex; calls for different ids may come from different threads
+	 */
+	void put(int id, int reached, long totalDistance, int eccentricity) {
+		int at = HEADER + id * RECORD;
+		buf.putInt(at, reached);
+		buf.putInt(at + 4, eccentricity);
+		buf.putLong(at + 8, totalDistance);
+	}
+
+	/** Number of vertices indexed */
+	public int size() {
+		return n;
+	}
+
+	/** How many vertices the vertex with this id reaches, including itself */
+	public int reached(int id) {
+		return buf.getInt(HEADER + id * RECORD);
+	}
+
+	/** The largest distance from the vertex with this id to a vertex it reaches */
+	public int eccentricity(int id) {
+		return buf.getInt(HEADER + id * RECORD + 4);
+	}
+
+	/** The sum of the distances from the vertex with this id to the vertices it reaches */
+	public long totalDistance(int id) {
+		return buf.getLong(HEADER + id * RECORD + 8);
+	}
+
+	/** The average distance from the vertex with this id to the other vertices it reaches */
+	public double averageSeparation(int id) {
+		return (double)totalDistance(id)/(reached(id)-1);
+	}
+
+	/**
+	 * Whether this index was built from these inputs and this vertex numbering
+	 */
+	public boolean matches(byte[] key, byte[] fingerprint) {
+		byte[] k = new byte[HASH], f = new byte[HASH];
+		buf.get(8, k);
+		buf.get(8 + HASH, f);
+		return Arrays.equals(k, key) && Arrays.equals(f, fingerprint);
+	}
+
+	/**
+	 * Same as Centrality.rank, but answered from the index
+	 * @param g			the graph the index was built for
+	 * @param sources	vertex ids to rank
+	 * @param num		how many to return: positive for largest average separation first, negative for smallest
+	 * @return			list of vertices, best first
+	 */
+	public <V,E> List<V> rank(IndexedGraph<V,E> g, int[] sources, int num) {
+		List<V> res = new ArrayList<V>();
+		if (num == 0 || sources.length == 0) return res;
+		Centrality.BoundedHeap heap = new Centrality.BoundedHeap(Math.min(Math.abs(num), sources.length), num > 0);
+		for (int id : sources) {
+			if (reached(id) > 1) heap.offer(id, averageSeparation(id));
+		}
+		for (int id : heap.sorted()) res.add(g.vertexAt(id));
+		return res;
+	}
+
+	/**
+	 * Saves the index, replacing the file only once it has been completely written
+	 */
+	public void write(String fileName) throws IOException {
+		Path path = Paths.get(fileName);
+		Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+		try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+			ByteBuffer all = buf.duplicate();
+			all.clear();
+			while (all.hasRemaining()) out.write(all);
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Memory-maps a saved index, if it exists and was built from these inputs and this vertex numbering
+	 * @param fileName		index file
+	 * @param key			content hash of the inputs (see GraphLib.contentHash)
+	 * @param g				graph the index is for
+	 * @return				the index, or null if it is missing or stale
+	 */
+	public static CentralityIndex open(String fileName, byte[] key, IndexedGraph<?,?> g) throws IOException {
+		Path path = Paths.get(fileName);
+		if (!Files.isReadable(path)) return null;
+		try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (in.size() < HEADER) return null;
+			ByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());	// stays valid after closing
+			if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) return null;
+			CentralityIndex index = new CentralityIndex(buf);
+			if (index.n != g.numVertices() || in.size() != HEADER + (long) index.n * RECORD) return null;
+			return index.matches(key, fingerprint(g)) ? index : null;
+		}
+	}
+
+	/**
+	 * A hash of the graph's vertices in id order, so an index isn't used with a graph numbered differently
+	 */
+	public static byte[] fingerprint(IndexedGraph<?,?> g) {
+		MessageDigest digest = GraphLib.sha256();
+		for (int id = 0; id < g.numVertices(); id++) {
+			digest.update(String.valueOf(g.vertexAt(id)).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) '\n');
+		}
+		return digest.digest();
+	}
+}
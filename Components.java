@@ -0,0 +1,126 @@
+import java.util.*;
+
+/**
+ * Connected components of an IndexedGraph, labelled once by union-find
+ * Every vertex id gets a component id (numbered in order of each component's smallest vertex id), and each
+ * component's size is recorded, so whether two actors are connected at all, or how many actors a center can
+ * reach, is an array lookup rather than a search
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class Components {
+	private final int[] component;		// vertex id -> component id
+	private final int[] sizes;			// component id -> number of vertices
+
+	/**
+	 * Labels the components of a graph, following its edges as cheaply as its representation allows
+	 */
+	public static Components of(IndexedGraph<?,?> g) {
+		int n = g.numVertices();
+		int[] parent = new int[n];
+		for (int i = 0; i < n; i++) parent[i] = i;
+		if (g instanceof CsrGraph) {
+			int[] offsets = ((CsrGraph<?,?>) g).offsets(), targets = ((CsrGraph<?,?>) g).targets();
+			for (int u = 0; u < n; u++) {
+				for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+					if (targets[k] > u) union(parent, u, targets[k]);	// each undirected edge once
+				}
+			}
+		}
+		else if (g instanceof BipartiteGraph) {	// everyone in a movie is connected to its first actor
+			int[] movieOffsets = ((BipartiteGraph<?,?>) g).movieOffsets(), movieActors = ((BipartiteGraph<?,?>) g).movieActors();
+			for (int m = 0; m + 1 < movieOffsets.length; m++) {
+				for (int j = movieOffsets[m] + 1; j < movieOffsets[m + 1]; j++) union(parent, movieActors[movieOffsets[m]], movieActors[j]);
+			}
+		}
+		else {
+			unionNeighbors(g, parent);
+		}
+		return new Components(parent);
+	}
+
+	/**
+	 * Unions every vertex with its out-neighbors, for graphs with no faster way in
+	 */
+	private static <V> void unionNeighbors(IndexedGraph<V,?> g, int[] parent) {
+		for (int u = 0; u < parent.length; u++) {
+			for (V v : g.outNeighbors(g.vertexAt(u))) union(parent, u, g.indexOf(v));
+		}
+	}
+
+	/**
+	 * Numbers the components from a finished union-find forest
+	 */
+	private Components(int[] parent) {
+		int n = parent.length;
+		component = new int[n];
+		int[] rootComponent = new int[n];
+		Arrays.fill(rootComponent, -1);
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			int root = find(parent, i);
+			if (rootComponent[root] < 0) rootComponent[root] = count++;
+			component[i] = rootComponent[root];
+		}
+		sizes = new int[count];
+		for (int i = 0; i < n; i++) sizes[component[i]]++;
+	}
+
+	/**
+	 * The root of i's set, halving the path on the way
+	 */
+	private static int find(int[] parent, int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	/**
+	 * Merges the sets of a and b, hanging the larger root under the smaller so roots stay the smallest ids
+	 */
+	private static void union(int[] parent, int a, int b) {
+		int ra = find(parent, a), rb = find(parent, b);
+		if (ra < rb) parent[rb] = ra;
+		else if (rb < ra) parent[ra] = rb;
+	}
+
+	/** Number of components */
+	public int numComponents() {
+		return sizes.length;
+	}
+
+	/** The component of the vertex with this id */
+	public int componentOf(int id) {
+		return component[id];
+	}
+
+	/** Number of vertices in a component */
+	public int size(int c) {
+		return sizes[c];
+	}
+
+	/** Number of vertices in the component of the vertex with this id, itself included */
+	public int componentSizeOf(int id) {
+		return sizes[component[id]];
+	}
+
+	/** Whether the vertices with these ids are connected by some path */
+	public boolean connected(int a, int b) {
+		return component[a] == component[b];
+	}
+
+	/**
+	 * The vertices of the graph not in a component (i.e., infinitely separated from every vertex in it)
+	 * @param g		the graph the components were labelled for
+	 * @param c		component id
+	 */
+	public <V> List<V> verticesOutside(IndexedGraph<V,?> g, int c) {
+		List<V> outside = new ArrayList<V>(component.length - sizes[c]);
+		for (int id = 0; id < component.length; id++) {
+			if (component[id] != c) outside.add(g.vertexAt(id));
+		}
+		return outside;
+	}
+}
@@ -0,0 +1,293 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Builds a frozen co-star CsrGraph (or actor-movie BipartiteGraph) from actors, movies and (movie, actor) credits
+ * Two actors get an edge if they appeared in at least one movie together, labeled by the set of all such movies
+ * (a compact MovieSet over one shared movie table); the same label is shared by both directions of the edge,
+ * as with insertUndirected
+ *
+ * @param <V>	the type of actors (vertices)
+ * @param <E>	the type of movies (members of the edge labels)
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class CostarGraphBuilder<V,E> {
+	private final List<V> actors = new ArrayList<V>();					// actor id -> actor
+	private final Map<V, Integer> actorIds = new HashMap<V, Integer>();		// actor -> actor id
+	private final List<E> movies = new ArrayList<E>();					// movie id -> movie
+	private final Map<E, Integer> movieIds = new HashMap<E, Integer>();		// movie -> movie id
+	private int[] creditMovies = new int[16], creditActors = new int[16];	// parallel arrays of credits
+	private int numCredits = 0;
+	private static final int MAX_PAIRS = Integer.MAX_VALUE - 8;	// longest array the JVM reliably allocates
+
+	/**
+	 * Adds an actor (a vertex, even if it never gets an edge), if not already present
+	 * @return		the actor's id
+	 */
+	public int addActor(V actor) {
+		Integer id = actorIds.get(actor);
+		if (id == null) {
+			id = actors.size();
+			actors.add(actor);
+			actorIds.put(actor, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Adds a movie, if not already present
+	 * @return		the movie's id
+	 */
+	public int addMovie(E movie) {
+		Integer id = movieIds.get(movie);
+		if (id == null) {
+			id = movies.size();
+			movies.add(movie);
+			movieIds.put(movie, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Records that the actor appeared in the movie
+	 * @param movie		movie id, from addMovie
+	 * @param actor		actor id, from addActor
+	 */
+	public void addCredit(int movie, int actor) {
+		if (numCredits == creditMovies.length) {
+			creditMovies = Arrays.copyOf(creditMovies, numCredits * 2);
+			creditActors = Arrays.copyOf(creditActors, numCredits * 2);
+		}
+		creditMovies[numCredits] = movie;
+		creditActors[numCredits] = actor;
+		numCredits++;
+	}
+
+	/**
+	 * Records that the actor appeared in the movie, adding either if necessary
+	 */
+	public void addCredit(E movie, V actor) {
+		addCredit(addMovie(movie), addActor(actor));
+	}
+
+	/**
+	 * Builds the co-star graph from everything added so far, using one thread per available processor
+	 */
+	public CsrGraph<V, Set<E>> build() {
+		return build(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Builds the co-star graph from everything added so far
+	 * Movies are split across the threads, each of which writes its (actor, co-star, movie) pairs into its own
+	 * slots of one shared array; then actors are split across the threads to sort and collapse their pairs
+	 * into edges; every slot is fixed in advance, so the graph is the same whatever the number of threads
+	 * @param threads	number of threads to use
+	 */
+	@SuppressWarnings("unchecked")
+	public CsrGraph<V, Set<E>> build(int threads) {
+		int n = actors.size(), m = movies.size();
+
+		// Group the credits by movie (counting sort), dropping an actor listed twice in the same cast
+		int[] castStart = new int[m + 1];
+		for (int c = 0; c < numCredits; c++) castStart[creditMovies[c] + 1]++;
+		for (int i = 0; i < m; i++) castStart[i + 1] += castStart[i];
+		int[] cast = new int[numCredits];
+		int[] fill = Arrays.copyOf(castStart, m);
+		for (int c = 0; c < numCredits; c++) cast[fill[creditMovies[c]]++] = creditActors[c];
+		int[] castEnd = new int[m];
+		long[] moviePairs = new long[m + 1];	// running total of the pairs each movie makes
+		for (int i = 0; i < m; i++) {
+			Arrays.sort(cast, castStart[i], castStart[i + 1]);
+			int k = castStart[i];
+			for (int j = castStart[i]; j < castStart[i + 1]; j++) {
+				if (k == castStart[i] || cast[k - 1] != cast[j]) cast[k++] = cast[j];
+			}
+			castEnd[i] = k;
+			moviePairs[i + 1] = moviePairs[i] + (long) (k - castStart[i]) * (k - castStart[i] - 1);
+		}
+		// The pairs all go in one array, so there can't be more than an array holds; this also keeps every count
+		// and position below, each at most the total, within an int
+		if (moviePairs[m] > MAX_PAIRS) {
+			throw new IllegalStateException("Too many co-star pairs to build the graph: " + moviePairs[m] + " (at most " + MAX_PAIRS + ")");
+		}
+
+		// Every actor in a cast of size k gets k-1 (co-star, movie) pairs, packed as co-star << 32 | movie
+		// Each thread counts the pairs its movies give each actor...
+		int[] movieSplit = split(moviePairs, threads);
+		int parts = movieSplit.length - 1;
+		int[][] cursors = new int[parts][];
+		parallel(parts, (int t) -> {
+			int[] count = new int[n];
+			for (int i = movieSplit[t]; i < movieSplit[t + 1]; i++) {
+				int k = castEnd[i] - castStart[i];
+				for (int j = castStart[i]; j < castEnd[i]; j++) count[cast[j]] += k - 1;
+			}
+			cursors[t] = count;
+		});
+		// ...which fixes where in each actor's range every thread's pairs go...
+		int[] pairStart = new int[n + 1];
+		for (int a = 0; a < n; a++) {
+			int at = pairStart[a];
+			for (int t = 0; t < parts; t++) {
+				int count = cursors[t][a];
+				cursors[t][a] = at;
+				at += count;
+			}
+			pairStart[a + 1] = at;
+		}
+		// ...so the threads can then write their pairs without coordinating
+		long[] pairs = new long[pairStart[n]];
+		parallel(parts, (int t) -> {
+			int[] cursor = cursors[t];
+			for (int i = movieSplit[t]; i < movieSplit[t + 1]; i++) {
+				for (int j = castStart[i]; j < castEnd[i]; j++) {
+					for (int l = castStart[i]; l < castEnd[i]; l++) {
+						if (l != j) pairs[cursor[cast[j]]++] = ((long) cast[l] << 32) | i;
+					}
+				}
+			}
+		});
+
+		// Sort each actor's pairs so that repeated co-stars are adjacent, and count the distinct ones
+		long[] actorPairs = new long[n + 1];
+		for (int a = 0; a <= n; a++) actorPairs[a] = pairStart[a];
+		int[] actorSplit = split(actorPairs, threads);
+		int actorParts = actorSplit.length - 1;
+		int[] degree = new int[n];
+		parallel(actorParts, (int t) -> {
+			for (int a = actorSplit[t]; a < actorSplit[t + 1]; a++) {
+				Arrays.sort(pairs, pairStart[a], pairStart[a + 1]);
+				for (int p = pairStart[a]; p < pairStart[a + 1]; p++) {
+					if (p == pairStart[a] || pairs[p] >>> 32 != pairs[p - 1] >>> 32) degree[a]++;
+				}
+			}
+		});
+		int[] offsets = new int[n + 1];
+		for (int a = 0; a < n; a++) offsets[a + 1] = offsets[a] + degree[a];
+
+		// Collapse the pairs into edges, making one label per co-star pair, on the edge from the lower id...
+		int[] targets = new int[offsets[n]];
+		Set<E>[] labels = (Set<E>[]) new Set<?>[offsets[n]];
+		E[] table = (E[]) movies.toArray();
+		parallel(actorParts, (int t) -> {
+			for (int a = actorSplit[t]; a < actorSplit[t + 1]; a++) {
+				int e = offsets[a];
+				for (int p = pairStart[a], q; p < pairStart[a + 1]; p = q, e++) {
+					int b = (int) (pairs[p] >>> 32);
+					for (q = p + 1; q < pairStart[a + 1] && (int) (pairs[q] >>> 32) == b; q++);	// pairs[p..q) are with b
+					targets[e] = b;
+					if (b < a) continue;
+					if (q - p == 1) labels[e] = MovieSet.of(table, (int) pairs[p]);	// by far the most common case
+					else {
+						int[] ids = new int[q - p];
+						for (int i = 0; i < ids.length; i++) ids[i] = (int) pairs[p + i];
+						labels[e] = MovieSet.of(table, ids);
+					}
+				}
+			}
+		});
+		// ...and sharing it with the edge from the higher id
+		parallel(actorParts, (int t) -> {
+			for (int a = actorSplit[t]; a < actorSplit[t + 1]; a++) {
+				for (int e = offsets[a]; e < offsets[a + 1] && targets[e] < a; e++) {
+					int b = targets[e];
+					labels[e] = labels[Arrays.binarySearch(targets, offsets[b], offsets[b + 1], a)];
+				}
+			}
+		});
+
+		return new CsrGraph<V, Set<E>>((V[]) actors.toArray(), offsets, targets, labels);
+	}
+
+	/**
+	 * Builds the actor-movie graph from everything added so far, without expanding casts into co-star pairs
+	 * An actor listed twice in the same cast is only counted once
+	 */
+	@SuppressWarnings("unchecked")
+	public BipartiteGraph<V,E> buildBipartite() {
+		int n = actors.size(), m = movies.size();
+		// Counting sort the credits by movie and by actor, then drop repeats within each (sorted) range
+		int[] movieOffsets = new int[m + 1], actorOffsets = new int[n + 1];
+		int[] movieActors = groupCredits(creditMovies, creditActors, m, movieOffsets);
+		int[] actorMovies = groupCredits(creditActors, creditMovies, n, actorOffsets);
+		return new BipartiteGraph<V,E>((V[]) actors.toArray(), (E[]) movies.toArray(), actorOffsets, actorMovies, movieOffsets, movieActors);
+	}
+
+	/**
+	 * Groups the credits' values by key, sorting and removing repeats within each group
+	 * @param keys		credit keys (ids in 0..numKeys-1)
+	 * @param values	credit values, parallel to keys
+	 * @param numKeys	number of distinct keys
+	 * @param offsets	numKeys+1 ints, filled with the start of each group (plus an end sentinel)
+	 * @return			the grouped values
+	 */
+	private int[] groupCredits(int[] keys, int[] values, int numKeys, int[] offsets) {
+		int[] start = new int[numKeys + 1];
+		for (int c = 0; c < numCredits; c++) start[keys[c] + 1]++;
+		for (int i = 0; i < numKeys; i++) start[i + 1] += start[i];
+		int[] grouped = new int[numCredits];
+		int[] fill = Arrays.copyOf(start, numKeys);
+		for (int c = 0; c < numCredits; c++) grouped[fill[keys[c]]++] = values[c];
+		int k = 0;
+		for (int i = 0; i < numKeys; i++) {
+			offsets[i] = k;
+			Arrays.sort(grouped, start[i], start[i + 1]);
+			for (int j = start[i]; j < start[i + 1]; j++) {
+				if (k == offsets[i] || grouped[k - 1] != grouped[j]) grouped[k++] = grouped[j];
+			}
+		}
+		offsets[numKeys] = k;
+		return Arrays.copyOf(grouped, k);
+	}
+
+	/**
+	 * Splits 0..count-1 into at most parts contiguous ranges of about equal total weight
+	 * @param cumulative	count+1 running totals of the weights (cumulative[i] = total weight before i)
+	 * @return				range boundaries: range t is boundaries[t] .. boundaries[t+1]-1
+	 */
+	private static int[] split(long[] cumulative, int parts) {
+		int count = cumulative.length - 1;
+		parts = Math.max(1, Math.min(parts, count));
+		int[] boundaries = new int[parts + 1];
+		for (int t = 1; t < parts; t++) {
+			long target = cumulative[count] / parts * t;
+			int i = Arrays.binarySearch(cumulative, target);
+			if (i < 0) i = -i - 1;
+			boundaries[t] = Math.max(boundaries[t - 1], Math.min(i, count));
+		}
+		boundaries[parts] = count;
+		return boundaries;
+	}
+
+	/**
+	 * Runs task(0) .. task(tasks-1), each on its own thread, and waits for all of them
+	 */
+	private static void parallel(int tasks, IntConsumer task) {
+		if (tasks == 1) {	// not worth a thread
+			task.accept(0);
+			return;
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(tasks);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < tasks; t++) {
+				int which = t;
+				futures.add(pool.submit(() -> task.accept(which)));
+			}
+			for (Future<?> future : futures) future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while building the graph", e);
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("Building the graph failed", e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+}
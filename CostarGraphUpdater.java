@@ -0,0 +1,138 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Keeps a co-star IndexedAdjacencyGraph up to date as (movie, actor) credits are added and removed, without
+ * rebuilding it
+ * It keeps each movie's cast, so adding a credit links the actor to the rest of the cast (adding the movie to
+ * the label of each edge, or making the edge), and removing one takes the movie back off those labels (removing
+ * any edge left with no movie); either costs time proportional to the cast, not to the graph
+ * Actors stay in the graph once added, even with no movies left, as actors with no movies do when the graph is
+ * built from the files
+ * The graph's listeners are told of every edge that comes or goes, so caches built from it can keep up
+ * Labels are never changed in place, only replaced by new sets, so snapshots of the graph keep the labels they had
+ *
+ * @param <V>	the type of actors (vertices)
+ * @param <E>	the type of movies (members of the edge labels)
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class CostarGraphUpdater<V,E> {
+	private final IndexedAdjacencyGraph<V, Set<E>> g;
+	private final Map<E, Set<V>> casts = new HashMap<E, Set<V>>();		// movie -> its actors
+	private int numCredits = 0;
+
+	/**
+	 * Starts from an empty graph
+	 */
+	public CostarGraphUpdater() {
+		g = new IndexedAdjacencyGraph<V, Set<E>>();
+	}
+
+	/** The graph being kept up to date */
+	public IndexedAdjacencyGraph<V, Set<E>> graph() {
+		return g;
+	}
+
+	/** Number of (movie, actor) credits */
+	public int numCredits() {
+		return numCredits;
+	}
+
+	/** The actors in a movie (empty if it has none) */
+	public Set<V> cast(E movie) {
+		Set<V> cast = casts.get(movie);
+		return cast == null ? Collections.<V>emptySet() : Collections.unmodifiableSet(cast);
+	}
+
+	/**
+	 * Adds an actor (a vertex, even if it never gets an edge), if not already present
+	 * @return		whether the actor is new
+	 */
+	public boolean addActor(V actor) {
+		if (g.hasVertex(actor)) return false;
+		g.insertVertex(actor);
+		return true;
+	}
+
+	/**
+	 * Records that the actor appeared in the movie, adding the actor if necessary
+	 * @return		whether the credit is new
+	 */
+	public boolean addCredit(E movie, V actor) {
+		Set<V> cast = casts.computeIfAbsent(movie, m -> new HashSet<V>());
+		if (cast.contains(actor)) return false;
+		addActor(actor);
+		for (V costar : cast) {
+			Set<E> label = g.getLabel(actor, costar);
+			label = label == null ? new HashSet<E>() : new HashSet<E>(label);
+			label.add(movie);
+			g.insertUndirected(actor, costar, label);		// the same set labels both directions
+		}
+		cast.add(actor);
+		numCredits++;
+		return true;
+	}
+
+	/**
+	 * Takes back the credit of the actor in the movie
+	 * @return		whether there was such a credit
+	 */
+	public boolean removeCredit(E movie, V actor) {
+		Set<V> cast = casts.get(movie);
+		if (cast == null || !cast.remove(actor)) return false;
+		if (cast.isEmpty()) casts.remove(movie);
+		for (V costar : cast) {
+			Set<E> label = g.getLabel(actor, costar);
+			if (label.size() == 1) g.removeUndirected(actor, costar);	// no movie left together
+			else {
+				label = new HashSet<E>(label);
+				label.remove(movie);
+				g.insertUndirected(actor, costar, label);
+			}
+		}
+		numCredits--;
+		return true;
+	}
+
+	/**
+	 * Brings the graph in line with the input files, applying only the credits (and actors) that differ from
+	 * what it already has; so if a batch of movies was added to the files, only those movies' casts are touched
+	 * Movies and actors are known by name, as when the graph is built from the files; credits naming an unknown
+	 * movie or actor id are skipped
+	 * @param moviesFile		id|title rows
+	 * @param actorsFile		id|name rows
+	 * @param movieActorsFile	movie id|actor id rows
+	 * @return					number of actors added plus credits added and removed
+	 */
+	@SuppressWarnings("unchecked")
+	public int reload(String moviesFile, String actorsFile, String movieActorsFile) throws IOException {
+		Map<Integer, V> actors = new LinkedHashMap<Integer, V>();		// in file order, so new actors are numbered in that order
+		Map<Integer, E> movies = new HashMap<Integer, E>();
+		PipeFileReader.readIdNames(actorsFile, (int id, String name) -> actors.put(id, (V) name));
+		PipeFileReader.readIdNames(moviesFile, (int id, String title) -> movies.put(id, (E) title));
+		Map<E, Set<V>> credits = new HashMap<E, Set<V>>();
+		PipeFileReader.readIdPairs(movieActorsFile, (int movieId, int actorId) -> {
+			E movie = movies.get(movieId);
+			V actor = actors.get(actorId);
+			if (movie != null && actor != null) credits.computeIfAbsent(movie, m -> new HashSet<V>()).add(actor);
+		});
+		int changes = 0;
+		// Take back the credits no longer in the files, first, so no edge is made only to be removed again
+		for (E movie : new ArrayList<E>(casts.keySet())) {
+			Set<V> now = credits.getOrDefault(movie, Collections.<V>emptySet());
+			for (V actor : new ArrayList<V>(casts.get(movie))) {
+				if (!now.contains(actor) && removeCredit(movie, actor)) changes++;
+			}
+		}
+		for (V actor : actors.values()) {
+			if (addActor(actor)) changes++;
+		}
+		for (Map.Entry<E, Set<V>> credit : credits.entrySet()) {
+			for (V actor : credit.getValue()) {
+				if (addCredit(credit.getKey(), actor)) changes++;
+			}
+		}
+		return changes;
+	}
+}
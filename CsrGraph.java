@@ -0,0 +1,212 @@
+import java.util.*;
+
+/**
+ * Immutable compressed-sparse-row implementation of the Graph interface, for undirected graphs
+ * Vertices are numbered 0..n-1; the neighbors of vertex i are targets[offsets[i]] .. targets[offsets[i+1]-1],
+ * sorted by id, and the label on each of those edges is at the same index in labels
+ * Since every edge is stored in both directions, in-neighbors and out-neighbors are the same
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+
+public class CsrGraph<V,E> implements IndexedGraph<V,E> {
+	protected final V[] vertices;				// id -> vertex
+	protected final Map<V, Integer> ids;		// vertex -> id
+	protected final int[] offsets;				// start of each vertex's neighbors in targets, plus an end sentinel
+	protected final int[] targets;				// neighbor ids, grouped by vertex and sorted within each group
+	protected final E[] labels;				// edge labels, parallel to targets
+
+	/**
+	 * Wraps already-built CSR arrays (which are not copied, so must not be modified afterwards)
+	 * @param vertices	vertices by id
+	 * @param offsets	vertices.length+1 offsets into targets
+	 * @param targets	neighbor ids, sorted within each vertex's range
+	 * @param labels	edge labels, parallel to targets
+	 */
+	public CsrGraph(V[] vertices, int[] offsets, int[] targets, E[] labels) {
+		this.vertices = vertices;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.labels = labels;
+		ids = new HashMap<V, Integer>(vertices.length * 2);
+		for (int i = 0; i < vertices.length; i++) ids.put(vertices[i], i);
+	}
+
+	/**
+	 * Freezes an undirected graph (every edge present in both directions) into CSR form
+	 * @param g		graph to copy
+	 */
+	@SuppressWarnings("unchecked")
+	public CsrGraph(Graph<V,E> g) {
+		int n = g.numVertices();
+		vertices = (V[]) new Object[n];
+		ids = new HashMap<V, Integer>(n * 2);
+		for (V v : g.vertices()) {
+			ids.put(v, ids.size());
+			vertices[ids.size() - 1] = v;
+		}
+		offsets = new int[n + 1];
+		for (int i = 0; i < n; i++) offsets[i + 1] = offsets[i] + g.outDegree(vertices[i]);
+		targets = new int[offsets[n]];
+		labels = (E[]) new Object[offsets[n]];
+		for (int i = 0; i < n; i++) {
+			int k = offsets[i];
+			for (V w : g.outNeighbors(vertices[i])) {
+				if (!g.hasEdge(w, vertices[i])) throw new IllegalArgumentException("Edge " + vertices[i] + " -> " + w + " has no reverse edge");
+				targets[k++] = ids.get(w);
+			}
+			Arrays.sort(targets, offsets[i], offsets[i + 1]);
+			for (k = offsets[i]; k < offsets[i + 1]; k++) labels[k] = g.getLabel(vertices[i], vertices[targets[k]]);
+		}
+	}
+
+	public int numVertices() {
+		return vertices.length;
+	}
+
+	public int numEdges() {
+		return targets.length;
+	}
+
+	public Iterable<V> vertices() {
+		return Collections.unmodifiableList(Arrays.asList(vertices));
+	}
+
+	public boolean hasVertex(V v) {
+		return ids.containsKey(v);
+	}
+
+	public int outDegree(V v) {
+		return degree(id(v));
+	}
+
+	public int inDegree(V v) {
+		return degree(id(v));
+	}
+
+	public Iterable<V> outNeighbors(V v) {
+		return neighbors(id(v));
+	}
+
+	public Iterable<V> inNeighbors(V v) {
+		return neighbors(id(v));
+	}
+
+	public boolean hasEdge(V u, V v) {
+		Integer j = ids.get(v);
+		return j != null && edgeIndex(id(u), j) >= 0;
+	}
+
+	public E getLabel(V u, V v) {
+		Integer j = ids.get(v);
+		if (j == null) return null;
+		int e = edgeIndex(id(u), j);
+		return e < 0 ? null : labels[e];
+	}
+
+	public void insertVertex(V v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void insertDirected(V u, V v, E e) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void insertUndirected(V u, V v, E e) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void removeVertex(V v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void removeDirected(V u, V v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public void removeUndirected(V u, V v) {
+		throw new UnsupportedOperationException("CsrGraph is immutable");
+	}
+
+	public int indexOf(V v) {
+		Integer i = ids.get(v);
+		return i == null ? -1 : i;
+	}
+
+	public V vertexAt(int id) {
+		return vertices[id];
+	}
+
+	/** How many edges from the vertex with this id */
+	public int degree(int id) {
+		return offsets[id + 1] - offsets[id];
+	}
+
+	/** The offsets array (shared, not a copy): neighbors of id are at offsets[id] .. offsets[id+1]-1 */
+	public int[] offsets() {
+		return offsets;
+	}
+
+	/** The targets array (shared, not a copy) */
+	public int[] targets() {
+		return targets;
+	}
+
+	/** The label on the edge stored at this index of targets */
+	public E labelAt(int edge) {
+		return labels[edge];
+	}
+
+	/** The index in targets of the edge from u to v, or a negative number if there is none */
+	public int edgeIndex(int u, int v) {
+		int e = Arrays.binarySearch(targets, offsets[u], offsets[u + 1], v);
+		return e >= 0 ? e : -1;
+	}
+
+	/**
+	 * Looks up a vertex's id, complaining if it isn't in the graph
+	 */
+	private int id(V v) {
+		Integer i = ids.get(v);
+		if (i == null) throw new IllegalArgumentException("No such vertex " + v);
+		return i;
+	}
+
+	/**
+	 * An iterable view of the neighbors of the vertex with this id
+	 */
+	private Iterable<V> neighbors(int id) {
+		return new Iterable<V>() {
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					int k = offsets[id];
+					public boolean hasNext() {
+						return k < offsets[id + 1];
+					}
+					public V next() {
+						if (k >= offsets[id + 1]) throw new NoSuchElementException();
+						return vertices[targets[k++]];
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Returns a string representation of the vertex and edge lists.
+	 */
+	public String toString() {
+		StringBuilder edges = new StringBuilder("{");
+		for (int i = 0; i < vertices.length; i++) {
+			if (i > 0) edges.append(", ");
+			edges.append(vertices[i]).append("={");
+			for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+				if (k > offsets[i]) edges.append(", ");
+				edges.append(vertices[targets[k]]).append('=').append(labels[k]);
+			}
+			edges.append('}');
+		}
+		edges.append('}');
+		return "Vertices: " + Arrays.toString(vertices) + "\nOut edges: " + edges;
+	}
+}
@@ -0,0 +1,70 @@
+import java.util.*;
+
+/**
+ * Vertices of an IndexedGraph bucketed by in-degree, built once with a counting sort
+ * The ids are kept in order of degree (ties by id), with the position where each degree's bucket starts, so the
+ * vertices within a range of degrees are one contiguous slice, found without any searching or comparisons
+ *
+ * @param <V>	the type of vertices
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class DegreeIndex<V> {
+	private final IndexedGraph<V,?> g;
+	private final int[] ids;			// vertex ids in nondecreasing order of degree
+	private final int[] starts;		// d -> position in ids of the first vertex with degree >= d, for d up to maxDegree+1
+
+	public DegreeIndex(IndexedGraph<V,?> g) {
+		this.g = g;
+		int n = g.numVertices();
+		int[] degree = new int[n];
+		int maxDegree = 0;
+		for (int id = 0; id < n; id++) {
+			degree[id] = g.inDegree(g.vertexAt(id));
+			maxDegree = Math.max(maxDegree, degree[id]);
+		}
+		// Count each degree, turn the counts into bucket starts, then drop the ids into their buckets
+		starts = new int[maxDegree + 2];
+		for (int id = 0; id < n; id++) starts[degree[id] + 1]++;
+		for (int d = 1; d < starts.length; d++) starts[d] += starts[d - 1];
+		ids = new int[n];
+		int[] next = Arrays.copyOf(starts, maxDegree + 1);
+		for (int id = 0; id < n; id++) ids[next[degree[id]]++] = id;
+	}
+
+	/** The largest degree of any vertex */
+	public int maxDegree() {
+		return starts.length - 2;
+	}
+
+	/** How many vertices have exactly degree d */
+	public int count(int d) {
+		return d < 0 || d > maxDegree() ? 0 : starts[d + 1] - starts[d];
+	}
+
+	/**
+	 * The ids of the vertices with degree between low and high (inclusive), in nondecreasing order of degree
+	 */
+	public int[] idsBetween(int low, int high) {
+		if (low > high || high < 0) return new int[0];
+		int from = start(Math.max(low, 0));
+		int to = high >= starts.length - 1 ? ids.length : start(high + 1);	// high + 1 could overflow
+		return Arrays.copyOfRange(ids, from, to);
+	}
+
+	/**
+	 * The vertices with degree between low and high (inclusive), in nondecreasing order of degree
+	 */
+	public List<V> verticesBetween(int low, int high) {
+		List<V> vertices = new ArrayList<V>();
+		for (int id : idsBetween(low, high)) vertices.add(g.vertexAt(id));
+		return vertices;
+	}
+
+	/**
+	 * The position in ids of the first vertex with degree at least d
+	 */
+	private int start(int d) {
+		return d >= starts.length ? ids.length : starts[d];
+	}
+}
@@ -0,0 +1,84 @@
+import java.util.*;
+
+/**
+ * Direction-optimizing breadth first search over the int ids of a CsrGraph
+ * Small levels are expanded top-down, as in BfsEngine: each frontier vertex claims its unreached neighbors.
+ * Once the frontier's edges outnumber (by a factor) those of the vertices still unreached, as happens in the
+ * middle levels around the co-star hubs, it switches to bottom-up: each unreached vertex looks through its own
+ * neighbors for any one on the frontier (a bitmap), stopping at the first, so most edges are never checked;
+ * it switches back to top-down once the frontier shrinks again
+ * Both directions fill the same ShortestPathTree (the frontier is always the last level of its visit order);
+ * bottom-up may pick a different parent among equally close ones, so paths can differ from BfsEngine's, but not
+ * in length
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class DirectionOptimizingBfs<V,E> implements PathSearch<V,E> {
+	private static final int ALPHA = 14;		// go bottom-up once frontier edges > unreached edges / ALPHA
+	private static final int BETA = 24;		// go back top-down once frontier vertices < vertices / BETA
+
+	private final CsrGraph<V,E> g;
+	private final ThreadLocal<long[]> frontierBits;	// bit v set if v is on the current frontier, per thread
+
+	public DirectionOptimizingBfs(CsrGraph<V,E> g) {
+		this.g = g;
+		frontierBits = ThreadLocal.withInitial(() -> new long[(g.numVertices() + 63) / 64]);
+	}
+
+	public CsrGraph<V,E> graph() {
+		return g;
+	}
+
+	public ShortestPathTree<V,E> bfs(V source) {
+		ShortestPathTree<V,E> tree = new ShortestPathTree<V,E>(g);
+		bfs(g.indexOf(source), tree);
+		return tree;
+	}
+
+	public void bfs(int source, ShortestPathTree<V,E> tree) {
+		int n = g.numVertices();
+		int[] offsets = g.offsets(), targets = g.targets();
+		int[] order = tree.order();
+		long[] bits = frontierBits.get();
+		tree.reset(source);
+		long unreachedEdges = targets.length - g.degree(source);
+		boolean bottomUp = false;
+		int from = 0;		// the frontier is order[from .. tree.numVertices()-1]
+		while (from < tree.numVertices()) {
+			int to = tree.numVertices();
+			long frontierEdges = 0;
+			for (int i = from; i < to; i++) frontierEdges += g.degree(order[i]);
+			if (!bottomUp && frontierEdges > unreachedEdges / ALPHA) bottomUp = true;
+			else if (bottomUp && to - from < n / BETA) bottomUp = false;
+
+			if (bottomUp) {
+				Arrays.fill(bits, 0);
+				for (int i = from; i < to; i++) bits[order[i] >>> 6] |= 1L << order[i];
+				for (int v = 0; v < n; v++) {
+					if (tree.distanceOf(v) >= 0) continue;
+					for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+						int u = targets[k];
+						if ((bits[u >>> 6] & (1L << u)) != 0) {	// a neighbor on the frontier: that's the parent
+							tree.discover(v, u);
+							break;
+						}
+					}
+				}
+			}
+			else {
+				for (int i = from; i < to; i++) {
+					int u = order[i];
+					for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+						int v = targets[k];
+						if (tree.distanceOf(v) < 0) tree.discover(v, u);
+					}
+				}
+			}
+			for (int i = to; i < tree.numVertices(); i++) unreachedEdges -= g.degree(order[i]);
+			from = to;
+		}
+	}
+}
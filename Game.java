@@ -7,181 +7,96 @@ import java.util.*;
 
 public class Game {
 
+	/**
+	 * Loads the graph from the snapshot if it was saved from the current input files; otherwise builds it
+	 * from the input files and saves a new snapshot
+	 */
+	private static CsrGraph<String,Set<String>> loadGraph(String snapshotFile, byte[] inputsHash) throws IOException {
+		CsrGraph<String,Set<String>> g = GraphSnapshot.read(snapshotFile, inputsHash);
+		if (g == null) {
+			// Stream the input files straight into the graph, frozen into compact read-only form, and save it for next time
+			g = GraphLib.loadCsrGraph("inputs/movies.txt", "inputs/actors.txt", "inputs/movie-actors.txt");
+			GraphSnapshot.write(g, inputsHash, snapshotFile);
+		}
+		return g;
+	}
+
+	/**
+	 * The value following a command-line option, or a default if the option isn't given
+	 */
+	private static String option(String[] args, String name, String otherwise) {
+		for (int i = 0; i + 1 < args.length; i++) {
+			if (args[i].equals(name)) return args[i + 1];
+		}
+		return otherwise;
+	}
+
 	public static void main(String[] args) throws IOException {
-		// Load the file to get maps of  id -> movies and id -> actor 
-		Map <String, String> movies = GraphLib.id2Name("inputs/movies.txt");
-		Map <String, String> actors =  GraphLib.id2Name("inputs/actors.txt");
-		Map <String, List<String>> movie2Actors = GraphLib.movie2Actors("inputs/movie-actors.txt", actors, movies);
-		
-		// Build the graph
-		Graph<String,Set<String>> g = GraphLib.buildGraph(actors, movie2Actors);
-		
-		
-		// Boilerplate code of instructions for playing the game 
-		System.out.println("Commands:\n" + "c <#>: list top (positive number) or bottom (negative) <#> centers of the universe, sorted by average separation\n" + 
-				"d <low> <high>: list actors sorted by degree, with degree between low and high\n" + 
-				"i: list actors with infinite separation from the current center\n" + 
-				"p <name>: find path from <name> to current center of the universe\n" + 
-				"s <low> <high>: list actors sorted by non-infinite separation from the current center, with separation between low and high\n" + 
-				"u <name>: make <name> the center of the universe\n" + 
-				"q: quit game");
-		// Take user input through scanner
-		@SuppressWarnings("resource")
-		Scanner input = new Scanner(System.in);
-		// User_input stores info entered by user, command stores the first letter, response contains everything else
-		String user_input, command, response;
-		// Set Kevin Bacon to be the center of the universe
-		String center = "Kevin Bacon";
-		// Create path tree with Kevin Bacon as the center
-		Graph<String, Set<String>> tree = GraphLib.bfs(g, center);
-		System.out.println("\n" + center + " is now the center of the acting universe, connected to " + 
-		(g.numVertices() - GraphLib.missingVertices(g, tree).size()-1) + "/" + g.numVertices() + 
-		" actors with average separation " + GraphLib.averageSeparation(tree, center));
-		
-		// Use a while loop to play the game
-		while (true) {
-			System.out.println("\n" + center + " game >");
-			// Save user input 
-			user_input = input.nextLine();
-			// Parse user input
-			if(user_input.contains(" ")) {	// if there is a space
-				command = user_input.substring(0,user_input.indexOf(' '));	// command is the first letter 
-				response = user_input.substring(user_input.indexOf(' ') + 1);	// response is anything that comes after the space of first letter
-			}
-			else {
-				command = user_input;
-				response = center;
-			}
-			// Execute the relevant block of code according to user input
-			// Press 'q' To quit the game
-			if(command.equals("q")) {	
-				return;
-			}
-			//Press 'p' and give vertex name to find path to the center of the universe
-			else if (command.equals("p")) {	
-				if(tree.hasVertex(response)) {	// check that the vertex entered is in the path tree
-					List<String> path = GraphLib.getPath(tree, response);		// retrive path of chosen actor to center
-					// Print the actor's distance from center of the universe (its Kevin Bacon number)
-					System.out.println(path.get(0).toString() + " 's number is " + (path.size()-1));
-					// Print the series of actors that leads to the center actor
-					for (int i = 0; i <path.size()-1; i++) {
-						System.out.println(path.get(i) + " appeared in " + g.getLabel(path.get(i), path.get(i+1))  + " with " + path.get(i+1));		
-					}
-				}
-				else { // Request user to enter the info in the correct format
-					System.out.println("Please enter a valid vertex");
-				}
-			}
-			// List top (positive number) or bottom (negative) <#> centers of the universe, sorted by average separation
-			else if (command.equals("c")) {	
-				int num = Integer.parseInt(response);
-				if (Math.abs(num) > g.numVertices()) {		// check that number entered by user is with the number of vertices of the graph
-					System.out.println("Please choose a valid size");
-				}
-				else { 
-					Map<String, Double> vert2AvgSep = new HashMap<String, Double>();
-					for (String vertex: tree.vertices()) {		// Loop over all the vertices
-						Graph<String, Set<String>> tempTree = GraphLib.bfs(g, vertex);	// create a path tree with this vertex as center
-						Double avgSep = GraphLib.averageSeparation(tempTree, vertex);	// get the average separation
-						vert2AvgSep.put(vertex, avgSep);			// add this to the map
-					}
-					List<String> res = new ArrayList<String>();	// stores the vertex names
-					
-					if (num != 0){ 	// ensure num is not zero
-						PriorityQueue<String> pq; 
-						if (num < 0) {	// use Minimum PQ if number entered is negative
-							pq = new PriorityQueue<String>((String v1, String v2) -> (int)((1000)* vert2AvgSep.get(v1) - (1000)* vert2AvgSep.get(v2)));
-						}
-						else {		// use Maximum PQ if number entered is positive
-							pq = new PriorityQueue<String>((String v1, String v2) -> (int)((1000)* vert2AvgSep.get(v2) - (1000)* vert2AvgSep.get(v1)));	
-						}
-						for (String vertex: vert2AvgSep.keySet() ) {	// Loop over the vertices
-							pq.add(vertex);
-						}
-						// Remove from pq and add it to the results array
-						for (int i =0; i<Math.abs(num); i++) res.add(pq.remove());		
-					}
-					System.out.println(res);		// print the result array
-				}
-			}
-			// d <low> <high>: list actors sorted by degree, with degree between low and high
-			else if (command.equals("d")) {
-				// Check if info entered is in the valid format
-				if (Character.isDigit(response.charAt(0)) && Character.isDigit(response.charAt(2)) && response.charAt(0) < response.charAt(2))  {
-					
-					String[] lowHigh = response.split(" "); 		// store the low and high numbers
-					// Get a list of actors sorted by decending in-degree
-					List<String> actorsByDegree = GraphLib.verticesByInDegree(tree);
-					Collections.reverse(actorsByDegree);		// reverse the list to ascending order
-					
-					int low = Integer.parseInt(lowHigh[0]);	// low and high stores the parsed characters
-					int high = Integer.parseInt(lowHigh[1]);
-					
-					List<String> res = new ArrayList<String>();	// stores vertices with low and high
-					for(int x=0; x<actorsByDegree.size(); x++) {		//loop over all the vertices in ascending order
-						// Check if it is within the range
-						if(g.inDegree(actorsByDegree.get(x)) >= low && g.inDegree(actorsByDegree.get(x)) <= high) {
-							res.add(actorsByDegree.get(x));
-						}	
-					}
-					Collections.reverse(res);		// reverse the results to sort them in low -> high
-					System.out.println(res);
-				}	
-				else {	// Asks user to enter info in valid format
-					System.out.println("Please enter the information in the valid format");
-				}
+		// Load the graph from its snapshot, if that was saved from these same input files
+		String snapshotFile = "inputs/graph.snapshot";
+		byte[] inputsHash = GraphLib.contentHash("inputs/movies.txt", "inputs/actors.txt", "inputs/movie-actors.txt");
+		// With -approx, c estimates the separations from sampled pivots instead of searching from every actor,
+		// to within -epsilon (default 0.05) unless that takes more than -budget milliseconds (default 2000)
+		boolean approximate = Arrays.asList(args).contains("-approx");
+		double epsilon = Double.parseDouble(option(args, "-epsilon", "0.05"));
+		long budget = Long.parseLong(option(args, "-budget", "2000"));
+		GameUniverse universe;
+		if (Arrays.asList(args).contains("-live")) {
+			// Keep the co-star graph in a mutable form, so the r command can apply changes to the input files
+			String[] inputFiles = { "inputs/movies.txt", "inputs/actors.txt", "inputs/movie-actors.txt" };
+			CostarGraphUpdater<String,String> updater = new CostarGraphUpdater<String,String>();
+			updater.reload(inputFiles[0], inputFiles[1], inputFiles[2]);
+			universe = new GameUniverse(updater, inputFiles, "inputs/centrality.idx", approximate, epsilon, budget);
+		}
+		else {
+			// With -bipartite, keep the actor-movie graph rather than expanding every cast into co-star edges;
+			// otherwise -bfs picks how trees are searched over the co-star graph (topdown, the default, or diropt)
+			PathSearch<String,Set<String>> engine;
+			if (Arrays.asList(args).contains("-bipartite")) {
+				engine = new BipartiteBfs<String,String>(GraphLib.loadBipartiteGraph("inputs/movies.txt", "inputs/actors.txt", "inputs/movie-actors.txt"));
 			}
-			// i: list actors with infinite separation from the current center
-			else if (command.equals("i")) {
-				System.out.println(GraphLib.missingVertices(g, tree));	// just print the vertices not in the path tree
+			else if (option(args, "-bfs", "topdown").equals("diropt")) {	// switch to bottom-up over the big middle levels
+				engine = new DirectionOptimizingBfs<String,Set<String>>(loadGraph(snapshotFile, inputsHash));
 			}
-			else if (command.equals("s")) {
-				// Check if info entered is in the correct format
-				if (Character.isDigit(response.charAt(0)) && Character.isDigit(response.charAt(2)) && response.charAt(0) < response.charAt(2)) {
-					String[] lowHigh = response.split(" "); 		// store the low and high numbers
-					
-					int low = Integer.parseInt(lowHigh[0]);
-					int high = Integer.parseInt(lowHigh[1]);
-					Map<String, Integer> vert2Sep = new HashMap<String, Integer>();
-					for (String vertex: tree.vertices()) {	// loop over all the vertices in the path tree
-						List<String> path = GraphLib.getPath(tree, vertex);	// obtain the path
-						Integer avgSep = (Integer)(path.size()-1);			// get the path size
-						vert2Sep.put(vertex, avgSep);	// put it in the Map
-					}
-					// Create minimum priority queue
-					PriorityQueue<String> pq = new PriorityQueue<String>((String actor1, String actor2) -> vert2Sep.get(actor1) - vert2Sep.get(actor2));
-					for (String vertex: vert2Sep.keySet()) {		// loop over the map
-						if (vert2Sep.get(vertex) >= low && vert2Sep.get(vertex) <= high) {	// if within the range, add it to the priority queue
-							pq.add(vertex);
-						}
-					}
-					System.out.println(pq);		// print the priority queue
-				}	
-				else {		// Asks user to enter information in the valid format
-					System.out.println("Please enter the information in the valid format");
-				}
+			else {
+				engine = new BfsEngine<String,Set<String>>(loadGraph(snapshotFile, inputsHash));
 			}
-			// u <name>: make <name> the center of the universe
-			else if(command.equals("u")) {	// change the center of the universe
-				// Check if the vertex entered is in the graph
-				if(!g.hasVertex(response)) System.out.println("Please enter a valid center vertex");
-				// If vertex entered is not in the current tree
-				if (!tree.hasVertex(response) && g.hasVertex(response)) {
-					tree = GraphLib.bfs(g, response);	// create new tree
-					center = response;		// set response to be the new center
-				} // Vertex entered is in the tree
-				if(g.hasVertex(response) && tree.hasVertex(response)) {
-					System.out.println(response + " is now the center of the acting universe, connected to "
-				+ (g.numVertices() - GraphLib.missingVertices(g, tree).size()-1) + "/" + g.numVertices() 
-				+ " actors with average separation " + GraphLib.averageSeparation(tree, response));
-					center = response;	// create new tree
-					tree = GraphLib.bfs(g, center); // set response to be the new center
-				}
+			universe = new GameUniverse(engine, inputsHash, "inputs/centrality.idx", approximate, epsilon, budget);
+		}
+
+		// Publish the metrics through JMX, and save them to a file (-metrics, default metrics.txt) on the way out
+		Metrics metrics = universe.metrics();
+		try {
+			metrics.register("kevinbacon:type=Metrics");
+		}
+		catch (javax.management.JMException e) {
+			System.err.println("Metrics not published through JMX: " + e);
+		}
+		String metricsFile = option(args, "-metrics", "metrics.txt");
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				metrics.dump(metricsFile);
 			}
-			// Asks user to enter a valid command
-			else {
-				System.out.println("Please enter a valid command");
+			catch (IOException e) {
+				System.err.println("Could not save the metrics to " + metricsFile + ": " + e);
 			}
+		}));
+
+		// With -serve <port>, play with any number of players over local connections instead of at the console
+		if (option(args, "-serve", null) != null) {
+			new GameServer(universe).serve(Integer.parseInt(option(args, "-serve", null)));
+			return;
+		}
+		GameSession session = new GameSession(universe);
+		session.start(System.out);
+		// Take user input through scanner
+		@SuppressWarnings("resource")
+		Scanner input = new Scanner(System.in);
+		// Use a while loop to play the game
+		while (true) {
+			System.out.println(session.prompt());
+			// Save user input, and carry it out
+			if (!input.hasNextLine() || !session.execute(input.nextLine(), System.out)) return;
 		}
 	}
 }
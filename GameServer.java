@@ -0,0 +1,100 @@
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.*;
+import java.nio.charset.Charset;
+import java.util.concurrent.*;
+
+/**
+ * Serves the game to any number of players at once over a local socket, each connection getting its own
+ * GameSession (and so its own center) over one shared GameUniverse
+ * The protocol is the console game's: one command per line in, the same text out, ending each reply with the
+ * prompt; try it with e.g. "nc localhost 4000"
+ * Each connection is handled on its own virtual thread when the JVM has them (Java 21 on), and otherwise on a
+ * thread from a cached pool
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class GameServer {
+	private static final Method START_VIRTUAL = virtualThreads();	// Thread.startVirtualThread, or null if there is none
+	private final GameUniverse universe;
+	private final ExecutorService pool;		// for connections, if there are no virtual threads
+
+	public GameServer(GameUniverse universe) {
+		this.universe = universe;
+		pool = START_VIRTUAL != null ? null : Executors.newCachedThreadPool(r -> {
+			Thread t = new Thread(r, "game-session");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Looks up Thread.startVirtualThread, which only exists from Java 21 (19 as a preview)
+	 */
+	private static Method virtualThreads() {
+		try {
+			return Thread.class.getMethod("startVirtualThread", Runnable.class);
+		}
+		catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Accepts connections on a port of the loopback address, forever
+	 */
+	public void serve(int port) throws IOException {
+		try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			System.out.println("Serving the game on " + server.getLocalSocketAddress() + " using " + (START_VIRTUAL != null ? "virtual threads" : "a thread pool"));
+			while (true) {
+				Socket socket = server.accept();
+				start(() -> play(socket));
+			}
+		}
+	}
+
+	/**
+	 * Runs a connection's handler on a virtual thread if possible, otherwise on the pool
+	 */
+	private void start(Runnable handler) {
+		if (START_VIRTUAL != null) {
+			try {
+				START_VIRTUAL.invoke(null, handler);
+				return;
+			}
+			catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Could not start a virtual thread", e);
+			}
+		}
+		pool.execute(handler);
+	}
+
+	/**
+	 * Plays one session over a connection, until the player quits or hangs up
+	 * A command that fails (e.g. a badly formed number) gets an error message rather than ending the session
+	 */
+	private void play(Socket socket) {
+		Charset charset = Charset.defaultCharset();		// as the console game reads and writes
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), charset));
+				PrintStream out = new PrintStream(new BufferedOutputStream(s.getOutputStream()), false, charset.name())) {
+			GameSession session = new GameSession(universe);
+			session.start(out);
+			while (true) {
+				out.println(session.prompt());
+				out.flush();
+				String line = in.readLine();
+				if (line == null) return;
+				try {
+					if (!session.execute(line, out)) return;
+				}
+				catch (RuntimeException e) {
+					out.println("Please enter a valid command (" + e + ")");
+				}
+			}
+		}
+		catch (IOException e) {
+			System.err.println("Session ended: " + e);
+		}
+	}
+}
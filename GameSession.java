@@ -0,0 +1,247 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * One player's game: the current center of the universe, over a GameUniverse shared with any other sessions;
+ * commands come in a line at a time, and their results go to the session's own output
+ * A session is used by one thread at a time; each command pins the universe's current version, and reads the
+ * graph and its center's tree from that version alone, so a reload of a live universe neither holds it up nor
+ * shows through half done; between commands the session holds on to no version, so old ones can be let go
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class GameSession {
+	private final GameUniverse universe;
+	private final Metrics metrics;
+	private String center;									// the current center of the universe
+
+	/**
+	 * Starts a session with Kevin Bacon as the center of the universe, making sure its tree is cached
+	 */
+	public GameSession(GameUniverse universe) {
+		this.universe = universe;
+		metrics = universe.metrics();
+		center = "Kevin Bacon";
+		try (GameUniverse.Version version = universe.pin()) {
+			version.tree(center);
+		}
+	}
+
+	/** The current center of the universe */
+	public String center() {
+		return center;
+	}
+
+	/**
+	 * Prints the instructions and the starting center's reach
+	 */
+	public void start(PrintStream out) {
+		try (GameUniverse.Version version = universe.pin()) {
+			start(version, out);
+		}
+	}
+
+	/**
+	 * Prints the instructions and the starting center's reach, in a pinned version
+	 */
+	private void start(GameUniverse.Version version, PrintStream out) {
+		IndexedGraph<String,Set<String>> g = version.graph();
+		Components components = version.components();
+		SeparationStats stats = version.tree(center).stats();	// totals kept by the search itself
+		// Boilerplate code of instructions for playing the game
+		out.println("Commands:\n" + "c <#>: list top (positive number) or bottom (negative) <#> centers of the universe, sorted by average separation\n" +
+				"d <low> <high>: list actors sorted by degree, with degree between low and high\n" +
+				"i: list actors with infinite separation from the current center\n" +
+				"p <name>: find path from <name> to current center of the universe\n" +
+				"p <name>|<other>: find path from <name> to <other>\n" +
+				"s <low> <high>: list actors sorted by non-infinite separation from the current center, with separation between low and high\n" +
+				"u <name>: make <name> the center of the universe\n" +
+				"r: reload the input files, applying just what changed (if the game was started with -live)\n" +
+				"stats: show timings and counts of the commands and the searches under them\n" +
+				"q: quit game");
+		out.println("\n" + center + " is now the center of the acting universe, connected to " +
+		(components.componentSizeOf(g.indexOf(center))-1) + "/" + g.numVertices() +
+		" actors with average separation " + stats.averageSeparation() + " (at most " + stats.eccentricity() + ")");
+	}
+
+	/** The prompt for the next command */
+	public String prompt() {
+		return "\n" + center + " game >";
+	}
+
+	/**
+	 * Carries out one line of user input, timing it
+	 * @return		false if the user quit, true otherwise
+	 */
+	public boolean execute(String user_input, PrintStream out) throws IOException {
+		// Command stores the first letter, response contains everything else
+		String command, response;
+		// Parse user input
+		if(user_input.contains(" ")) {	// if there is a space
+			command = user_input.substring(0,user_input.indexOf(' '));	// command is the first letter
+			response = user_input.substring(user_input.indexOf(' ') + 1);	// response is anything that comes after the space of first letter
+		}
+		else {
+			command = user_input;
+			response = center;
+		}
+		long start = System.nanoTime();
+		try {
+			// Reloading publishes a new version; every other command reads the version current when it starts
+			if (command.equals("r")) return reload(out);
+			try (GameUniverse.Version version = universe.pin()) {
+				return execute(version, command, response, out);
+			}
+		}
+		finally {
+			// One histogram per real command; anything else is just counted
+			if (command.matches("[cdipqrsu]|stats")) metrics.time("command." + command, start);
+			else metrics.count("command.invalid", 1);
+		}
+	}
+
+	/**
+	 * Carries out a parsed command, in a pinned version
+	 */
+	private boolean execute(GameUniverse.Version version, String command, String response, PrintStream out) throws IOException {
+		IndexedGraph<String,Set<String>> g = version.graph();
+		Components components = version.components();
+		// Execute the relevant block of code according to user input
+		// Press 'q' To quit the game
+		if(command.equals("q")) {
+			return false;
+		}
+		// Show what the commands (of every session) and the searches under them have cost so far
+		else if (command.equals("stats")) {
+			out.print(metrics.report());
+		}
+		//Press 'p' and give vertex name to find path to the center of the universe
+		else if (command.equals("p")) {
+			if (response.contains("|")) {	// path between two given actors, not involving the center
+				String source = response.substring(0, response.indexOf('|'));
+				String target = response.substring(response.indexOf('|') + 1);
+				if (!g.hasVertex(source) || !g.hasVertex(target)) {
+					out.println("Please enter two valid vertices");
+				}
+				else {
+					List<String> path = version.path(source, target);
+					if (path.isEmpty()) out.println(source + " and " + target + " have infinite separation");
+					else {
+						out.println(source + " and " + target + " are separated by " + (path.size()-1));
+						for (int i = 0; i <path.size()-1; i++) {
+							out.println(path.get(i) + " appeared in " + g.getLabel(path.get(i), path.get(i+1))  + " with " + path.get(i+1));
+						}
+					}
+				}
+			}
+			else {
+				ShortestPathTree<String,Set<String>> tree = version.tree(center);	// shared through the version's cache
+				if(tree.hasVertex(response)) {	// check that the vertex entered is in the path tree
+					// Print the actor's distance from center of the universe (its Kevin Bacon number), kept by the tree
+					out.println(response + " 's number is " + tree.distance(response));
+					List<String> path = tree.getPath(response);		// retrive path of chosen actor to center
+					// Print the series of actors that leads to the center actor
+					for (int i = 0; i <path.size()-1; i++) {
+						out.println(path.get(i) + " appeared in " + g.getLabel(path.get(i), path.get(i+1))  + " with " + path.get(i+1));
+					}
+				}
+				else { // Request user to enter the info in the correct format
+					out.println("Please enter a valid vertex");
+				}
+			}
+		}
+		// List top (positive number) or bottom (negative) <#> centers of the universe, sorted by average separation
+		else if (command.equals("c")) {
+			int num = Integer.parseInt(response);
+			if (Math.abs(num) > g.numVertices()) {		// check that number entered by user is with the number of vertices of the graph
+				out.println("Please choose a valid size");
+			}
+			else if (universe.approximate()) {
+				int[] ids = version.tree(center).vertexIds();	// shared through the version's cache
+				SeparationEstimate estimate = version.estimate(components.componentOf(g.indexOf(center)), ids, num);
+				// Print each estimate with its 95% confidence interval
+				List<String> res = new ArrayList<String>();
+				for (int id : estimate.rank(ids, num)) {
+					res.add(g.vertexAt(id) + " (" + String.format("%.4f", estimate.averageSeparation(id)) + " +/- " + String.format("%.4f", estimate.halfWidth(id)) + ")");
+				}
+				out.println(res);
+				out.println("estimated from " + estimate.pivots() + "/" + estimate.population() + " pivots");
+			}
+			else {
+				// Rank the vertices of the current tree
+				CentralityIndex index = version.index();
+				long start = System.nanoTime();
+				List<String> res = index.rank(g, version.tree(center).vertexIds(), num);
+				metrics.time("centrality.rank", start);
+				out.println(res);		// print the result array
+			}
+		}
+		// d <low> <high>: list actors sorted by degree, with degree between low and high
+		else if (command.equals("d")) {
+			// Check if info entered is in the valid format
+			if (Character.isDigit(response.charAt(0)) && Character.isDigit(response.charAt(2)) && response.charAt(0) < response.charAt(2))  {
+
+				String[] lowHigh = response.split(" "); 		// store the low and high numbers
+				int low = Integer.parseInt(lowHigh[0]);	// low and high stores the parsed characters
+				int high = Integer.parseInt(lowHigh[1]);
+
+				ShortestPathTree<String,Set<String>> tree = version.tree(center);
+				List<String> res = new ArrayList<String>();	// actors of the current tree with degree between low and high
+				int[] ids = version.degrees().idsBetween(low, high);		// in ascending order of degree
+				for (int i = ids.length - 1; i >= 0; i--) {		// highest degree first, as the game always listed them
+					if (tree.distanceOf(ids[i]) >= 0) res.add(g.vertexAt(ids[i]));
+				}
+				out.println(res);
+			}
+			else {	// Asks user to enter info in valid format
+				out.println("Please enter the information in the valid format");
+			}
+		}
+		// i: list actors with infinite separation from the current center
+		else if (command.equals("i")) {
+			// Just print the vertices outside the center's component
+			out.println(components.verticesOutside(g, components.componentOf(g.indexOf(center))));
+		}
+		else if (command.equals("s")) {
+			// Check if info entered is in the correct format
+			if (Character.isDigit(response.charAt(0)) && Character.isDigit(response.charAt(2)) && response.charAt(0) < response.charAt(2)) {
+				String[] lowHigh = response.split(" "); 		// store the low and high numbers
+
+				int low = Integer.parseInt(lowHigh[0]);
+				int high = Integer.parseInt(lowHigh[1]);
+				// The tree keeps its vertices in order of distance, so this is just the run between the two levels
+				out.println(version.tree(center).verticesBetween(low, high));
+			}
+			else {		// Asks user to enter information in the valid format
+				out.println("Please enter the information in the valid format");
+			}
+		}
+		// u <name>: make <name> the center of the universe
+		else if(command.equals("u")) {	// change the center of the universe
+			// Check if the vertex entered is in the graph
+			if(!g.hasVertex(response)) out.println("Please enter a valid center vertex");
+			else {
+				center = response;		// set response to be the new center
+				ShortestPathTree<String,Set<String>> tree = version.tree(center);	// create new tree, unless it was used recently (by any session)
+				SeparationStats stats = tree.stats();
+				out.println(response + " is now the center of the acting universe, connected to "
+			+ (components.componentSizeOf(g.indexOf(center))-1) + "/" + g.numVertices()
+			+ " actors with average separation " + stats.averageSeparation() + " (at most " + stats.eccentricity() + ")");
+			}
+		}
+		// Asks user to enter a valid command
+		else {
+			out.println("Please enter a valid command");
+		}
+		return true;
+	}
+
+	/**
+	 * Brings a live universe up to date with the input files
+	 */
+	private boolean reload(PrintStream out) throws IOException {
+		if (!universe.live()) out.println("Start the game with -live to reload the input files");
+		else out.println("Applied " + universe.reload() + " changes (actors and credits) from the input files");
+		return true;
+	}
+}
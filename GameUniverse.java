@@ -0,0 +1,407 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Everything the game's sessions share: the graph and its searches, loaded once, plus the indexes and trees built
+ * from it, so that any number of sessions (at the console or connected to a GameServer) can play at once
+ * What is built from the graph belongs to a Version of it; a session pins the current version for each command,
+ * and reads only from that; the searches keep no shared state, and the trees are shared through a TreeCache
+ * The centrality index and the estimates are each made once, by the first command that needs them, without
+ * holding any lock; other commands needing that same result wait for it, but no others do
+ * A universe can also be live, over a graph kept up to date by a CostarGraphUpdater: reloading the input files
+ * applies just the credits that changed to the working graph, while the sessions carry on reading the version
+ * they have pinned, then publishes the result as a new version (see VersionedGraph), so no command waits for a
+ * reload or sees one half done; copies of the cached trees are repaired as each change is made, and the edges
+ * that changed are noted, so that the next time the index is needed, only the vertices whose records those
+ * edges may have changed are searched from again (see Centrality.staleSources)
+ * On a graph that is mostly one component, where most actors are a few steps apart, that is much less than
+ * the whole graph only for a handful of changes; more, or any that join or split components, or bring in a new
+ * actor, mark most of it, and the index is in effect made again
+ * An old version is let go once the commands that pinned it finish
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class GameUniverse implements GraphListener {
+	private static final int MAX_TREES = 16;					// most trees cached per version
+	private static final long MAX_TREE_BYTES = 256L << 20;		// most bytes of trees cached per version
+
+	private final CostarGraphUpdater<String,String> updater;	// null unless live
+	private final VersionedGraph<String,Set<String>> versions;	// the updater's graph, by version; null unless live
+	private final String[] inputFiles;						// movies, actors, movie-actors; null unless live
+	private final String indexFile;
+	private final boolean approximate;
+	private final double epsilon;
+	private final long budget;
+	private final Metrics metrics = new Metrics();			// timings and counts, for the stats command
+	private final Set<Long> changed = new HashSet<Long>();	// edges added or removed by the reload under way (see Version.edges)
+	private TreeCache<String,Set<String>> repaired;			// copies of the current trees, repaired as the reload under way changes the graph
+	private volatile Version current;						// the version sessions pin
+
+	/**
+	 * @param engine		how trees are searched over the graph
+	 * @param inputsHash	content hash of the input files the graph was built from
+	 * @param indexFile		where the centrality index is saved
+	 * @param approximate	whether c estimates the separations from sampled pivots instead of using the index
+	 * @param epsilon		target confidence half width when approximate
+	 * @param budget		time budget for an estimate, in milliseconds, when approximate
+	 */
+	public GameUniverse(PathSearch<String,Set<String>> engine, byte[] inputsHash, String indexFile, boolean approximate, double epsilon, long budget) throws IOException {
+		this(null, null, null, engine, inputsHash, indexFile, approximate, epsilon, budget);
+	}
+
+	/**
+	 * A live universe, whose graph can be brought up to date with the input files by reload
+	 * @param updater		keeps the graph, already loaded from the input files
+	 * @param inputFiles	the movies, actors and movie-actors files
+	 * @param indexFile		where the centrality index is saved
+	 * @param approximate	as above
+	 * @param epsilon		as above
+	 * @param budget		as above
+	 */
+	public GameUniverse(CostarGraphUpdater<String,String> updater, String[] inputFiles, String indexFile, boolean approximate, double epsilon, long budget) throws IOException {
+		this(updater, new VersionedGraph<String,Set<String>>(updater.graph()), inputFiles, null, GraphLib.contentHash(inputFiles), indexFile, approximate, epsilon, budget);
+		updater.graph().addListener(this);
+		metrics.gauge("versions.current", () -> current.number());
+		metrics.gauge("versions.pinned", versions::numPinned);
+	}
+
+	private GameUniverse(CostarGraphUpdater<String,String> updater, VersionedGraph<String,Set<String>> versions, String[] inputFiles, PathSearch<String,Set<String>> engine, byte[] inputsHash, String indexFile, boolean approximate, double epsilon, long budget) throws IOException {
+		this.updater = updater;
+		this.versions = versions;
+		this.inputFiles = inputFiles;
+		this.indexFile = indexFile;
+		this.approximate = approximate;
+		this.epsilon = epsilon;
+		this.budget = budget;
+		// Over a live graph, the first version searches the snapshot published when it was loaded
+		if (versions != null) current = new Version(versions.current(), new AdjacencyBfs<String,Set<String>>(versions.current().graph()), inputsHash);
+		else current = new Version(null, engine, inputsHash);
+		// The trees' counters carry over from version to version, so these follow whichever is current
+		metrics.gauge("trees.hits", () -> current.trees.hits());
+		metrics.gauge("trees.misses", () -> current.trees.misses());
+		metrics.gauge("trees.evictions", () -> current.trees.evictions());
+		metrics.gauge("trees.bytes", () -> current.trees.bytes());
+		metrics.gauge("trees.repairs", () -> current.trees.repairs());
+		metrics.gauge("trees.invalidations", () -> current.trees.invalidations());
+		// Map the saved centrality index, if it was built from these same input files
+		current.saved = CentralityIndex.open(indexFile, inputsHash, current.g);
+	}
+
+	/** The shared metrics */
+	public Metrics metrics() {
+		return metrics;
+	}
+
+	/** Whether the graph can be reloaded */
+	public boolean live() {
+		return updater != null;
+	}
+
+	/** Whether c estimates from sampled pivots */
+	public boolean approximate() {
+		return approximate;
+	}
+
+	/**
+	 * The current version, pinned until it is closed, for reading the graph and what is built from it; a reload
+	 * meanwhile doesn't affect it
+	 */
+	public Version pin() {
+		Version version = current;
+		if (version.snapshot != null) version.snapshot.pin();
+		return version;
+	}
+
+	/**
+	 * Brings the graph up to date with the input files, applying just what changed, and publishes the result as a
+	 * new version; the commands under way, and those starting meanwhile, carry on with the version before
+	 * One reload runs at a time
+	 * @return		number of actors added plus credits added and removed
+	 */
+	public int reload() throws IOException {
+		if (updater == null) throw new IllegalStateException("Only a live universe can be reloaded");
+		synchronized (updater) {
+			long start = System.nanoTime();
+			Version old = current;
+			byte[] hash = GraphLib.contentHash(inputFiles);	// before reading, so a later change to the files is seen next time
+			// If reading fails partway, the working graph keeps the changes made so far, and so do the repaired
+			// trees and the changed edges, to be carried on with by the next reload
+			int changes = updater.reload(inputFiles[0], inputFiles[1], inputFiles[2]);
+			TreeCache<String,Set<String>> trees = repaired;	// copies of the trees made at the first edge change, if any, and repaired since
+			repaired = null;
+			if (changes > 0 || !Arrays.equals(hash, old.inputsHash)) {
+				// What else depends on the whole graph is made again for the new version, except the index, which
+				// carries over, to be brought up to date from the edges that changed
+				VersionedGraph.Snapshot<String,Set<String>> snapshot = versions.publish();
+				Version next = new Version(snapshot, new AdjacencyBfs<String,Set<String>>(snapshot.graph()), hash);
+				if (trees != null) next.trees.adopt(trees);
+				else next.trees.carryOver(old.trees);	// no edge changed (only labels or lone actors), so the trees still hold
+				// The old version's index is used only if it is already made; one still being made isn't waited for
+				CompletableFuture<CentralityIndex> built = old.index.get();
+				CentralityIndex made = built != null && built.isDone() && !built.isCompletedExceptionally() ? built.join() : null;
+				if (made != null) {
+					next.saved = made;
+					next.savedGraph = old.snapshot.graph();
+				}
+				else {
+					next.saved = old.saved;
+					next.savedGraph = old.savedGraph;
+					next.edges.addAll(old.edges);
+				}
+				for (long edge : changed) toggle(next.edges, edge);
+				changed.clear();
+				current = next;
+			}
+			metrics.time("reload", start);
+			metrics.histogram("reload.changes").record(changes);
+			return changes;
+		}
+	}
+
+	/**
+	 * A new vertex is a component of its own, so it changes no record of the index but its own
+	 */
+	public void vertexInserted(int id) {
+	}
+
+	/**
+	 * Notes an edge added, for the centrality index to check, and repairs the copies of the trees
+	 */
+	public void edgeInserted(int u, int v) {
+		toggle(changed, (long) Math.min(u, v) << 32 | Math.max(u, v));
+		repaired().edgeInserted(u, v);
+	}
+
+	/**
+	 * Notes an edge removed, for the centrality index to check, and repairs the copies of the trees
+	 */
+	public void edgeRemoved(int u, int v) {
+		toggle(changed, (long) Math.min(u, v) << 32 | Math.max(u, v));
+		repaired().edgeRemoved(u, v);
+	}
+
+	/**
+	 * The copies of the current version's trees that the reload under way repairs, copying them at its first
+	 * edge change, and leaving the originals to the sessions
+	 */
+	private TreeCache<String,Set<String>> repaired() {
+		if (repaired == null) {
+			repaired = new TreeCache<String,Set<String>>(new AdjacencyBfs<String,Set<String>>(versions.working()), MAX_TREES, MAX_TREE_BYTES);
+			repaired.carryOver(current.trees);
+		}
+		return repaired;
+	}
+
+	/**
+	 * Adds an edge to a set of changed edges, or takes it out if it was there: adding an edge and removing it
+	 * again leaves the graph as it was
+	 */
+	private static void toggle(Set<Long> edges, long edge) {
+		if (!edges.remove(edge)) edges.add(edge);
+	}
+
+	/**
+	 * Waits for a result being made by another thread, passing on what went wrong if it failed
+	 */
+	private static <T> T join(CompletableFuture<T> made) throws IOException {
+		try {
+			return made.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error) throw (Error) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * One version of the graph, with the searches, trees and indexes built from it; pinned by GameUniverse.pin,
+	 * and unpinned by closing it
+	 * Nothing here changes the graph, so any number of sessions can read a version at once
+	 */
+	public class Version implements AutoCloseable {
+		private final VersionedGraph.Snapshot<String,Set<String>> snapshot;	// null unless live
+		private final IndexedGraph<String,Set<String>> g;
+		private final BidirectionalSearch<String,Set<String>> pairSearch;	// null if the graph isn't a CsrGraph
+		private final Centrality<String,Set<String>> centrality;
+		private final Components components;
+		private final TreeCache<String,Set<String>> trees;
+		private final byte[] inputsHash;
+		private CentralityIndex saved;						// the index to start from (loaded, or made for an earlier version), or null
+		private IndexedAdjacencyGraph<String,Set<String>> savedGraph;	// the version of a live graph it was made for
+		private final Set<Long> edges = new HashSet<Long>();		// edges added or removed since, u << 32 | v with u < v
+		private final AtomicReference<CompletableFuture<CentralityIndex>> index = new AtomicReference<CompletableFuture<CentralityIndex>>();	// null until first needed
+		private DegreeIndex<String> degrees;					// null until the first d command
+		private final Map<Integer, CompletableFuture<SeparationEstimate>> estimates = new ConcurrentHashMap<Integer, CompletableFuture<SeparationEstimate>>();	// component -> last estimate
+
+		/**
+		 * @param snapshot		the version of a live graph, or null
+		 * @param engine		how trees are searched over the graph
+		 * @param inputsHash	content hash of the input files the graph was built from
+		 */
+		private Version(VersionedGraph.Snapshot<String,Set<String>> snapshot, PathSearch<String,Set<String>> engine, byte[] inputsHash) {
+			this.snapshot = snapshot;
+			this.inputsHash = inputsHash;
+			g = engine.graph();
+			if (snapshot != null) savedGraph = snapshot.graph();
+			// Paths between two actors search from both ends at once; over the CSR ids when there are any
+			pairSearch = g instanceof CsrGraph ? new BidirectionalSearch<String,Set<String>>((CsrGraph<String,Set<String>>) g) : null;
+			centrality = new Centrality<String,Set<String>>(engine);
+			// Label the connected components once, for who is reachable from a center at all
+			components = Components.of(g);
+			// Keep the trees of recent centers, so switching back to one needs no search; time the searches it does run
+			trees = new TreeCache<String,Set<String>>(new MeteredSearch<String,Set<String>>(engine, metrics, "bfs"), MAX_TREES, MAX_TREE_BYTES);
+		}
+
+		/** Number of reloads before this version that changed the graph */
+		public int number() {
+			return snapshot == null ? 0 : snapshot.version();
+		}
+
+		/** The graph */
+		public IndexedGraph<String,Set<String>> graph() {
+			return g;
+		}
+
+		/** The graph's connected components */
+		public Components components() {
+			return components;
+		}
+
+		/** The shortest path tree rooted at a center, from the shared cache if it was used recently */
+		public ShortestPathTree<String,Set<String>> tree(String center) {
+			long start = System.nanoTime();
+			ShortestPathTree<String,Set<String>> tree = trees.get(center);
+			metrics.time("trees.get", start);
+			return tree;
+		}
+
+		/** The shared tree cache */
+		public TreeCache<String,Set<String>> trees() {
+			return trees;
+		}
+
+		/**
+		 * A shortest path between two actors (in the graph), or an empty list if there is none
+		 */
+		public List<String> path(String source, String target) {
+			long start = System.nanoTime();
+			if (pairSearch == null) {
+				List<String> path = GraphLib.bidirectionalPath(g, source, target);
+				metrics.time("bidirectional", start);
+				return path;
+			}
+			List<String> path = pairSearch.path(source, target);
+			metrics.time("bidirectional", start);
+			metrics.histogram("bidirectional.vertices").record(pairSearch.touched());
+			return path;
+		}
+
+		/**
+		 * The centrality index, searching from every vertex (in parallel) if there was no usable saved one, and
+		 * saving the results if this is still the current version
+		 * The first caller makes it, without holding any lock; callers meanwhile wait for that one, and if it
+		 * fails, the next caller tries again
+		 */
+		public CentralityIndex index() throws IOException {
+			CompletableFuture<CentralityIndex> made = index.get();
+			if (made == null) {
+				CompletableFuture<CentralityIndex> mine = new CompletableFuture<CentralityIndex>();
+				if (index.compareAndSet(null, mine)) {
+					try {
+						CentralityIndex result = makeIndex();
+						mine.complete(result);
+						return result;
+					}
+					catch (Throwable e) {
+						index.compareAndSet(mine, null);
+						mine.completeExceptionally(e);
+						throw e;
+					}
+				}
+				made = index.get();
+			}
+			return join(made);
+		}
+
+		/**
+		 * Makes the centrality index, from the saved one if there is one, redoing just the records that the edges
+		 * changed since may have changed, and those of new vertices
+		 */
+		private CentralityIndex makeIndex() throws IOException {
+			if (saved == null) {
+				long start = System.nanoTime();
+				CentralityIndex made = centrality.index(inputsHash, components);
+				if (this == current) made.write(indexFile);
+				metrics.time("centrality.index", start);
+				return made;
+			}
+			if (edges.isEmpty() && saved.size() == g.numVertices()) return saved;
+			long start = System.nanoTime();
+			BitSet stale = edges.isEmpty() ? new BitSet() : Centrality.staleSources(savedGraph, edges.stream().mapToLong(Long::longValue).toArray());
+			int redone = stale.get(0, saved.size()).cardinality() + g.numVertices() - saved.size();
+			CentralityIndex made = centrality.update(saved, inputsHash, components, stale);
+			if (this == current) made.write(indexFile);
+			metrics.time("centrality.update", start);
+			metrics.histogram("centrality.update.stale").record(redone);
+			return made;
+		}
+
+		/**
+		 * The degree index, bucketing the actors by degree the first time
+		 */
+		public synchronized DegreeIndex<String> degrees() {
+			if (degrees == null) {
+				long start = System.nanoTime();
+				degrees = new DegreeIndex<String>(g);
+				metrics.time("degrees.index", start);
+			}
+			return degrees;
+		}
+
+		/**
+		 * An estimate of the average separations within a component, good enough to rank num of its vertices;
+		 * the last estimate for the component will do if it is already close enough, or if it ran out of time
+		 * ranking at least as many (a new one, with the same budget, would do no better), otherwise a new one is made
+		 * An estimate is made without holding any lock; only callers for the same component wait for it
+		 * @param component		component id
+		 * @param ids			all the vertex ids in the component
+		 * @param num			as for Centrality.rank
+		 */
+		public SeparationEstimate estimate(int component, int[] ids, int num) {
+			while (true) {
+				CompletableFuture<SeparationEstimate> last = estimates.get(component);
+				if (last != null) {
+					SeparationEstimate estimate = last.join();
+					if (estimate.outOfTimeFor(num) || estimate.maxHalfWidth(estimate.rank(ids, num)) <= epsilon) return estimate;
+				}
+				CompletableFuture<SeparationEstimate> mine = new CompletableFuture<SeparationEstimate>();
+				boolean claimed = last == null ? estimates.putIfAbsent(component, mine) == null : estimates.replace(component, last, mine);
+				if (!claimed) continue;		// another caller is making one: see if it will do
+				try {
+					long start = System.nanoTime();
+					SeparationEstimate estimate = centrality.estimate(ids, num, epsilon, budget, 0);
+					mine.complete(estimate);
+					metrics.time("centrality.estimate", start);
+					metrics.histogram("centrality.estimate.pivots").record(estimate.pivots());
+					return estimate;
+				}
+				catch (Throwable e) {
+					estimates.remove(component, mine);
+					mine.completeExceptionally(e);
+					throw e;
+				}
+			}
+		}
+
+		/**
+		 * Unpins the version
+		 */
+		public void close() {
+			if (snapshot != null) snapshot.unpin();
+		}
+	}
+}
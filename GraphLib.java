@@ -1,5 +1,8 @@
 import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Library for graph analysis
@@ -20,6 +23,8 @@ public class GraphLib {
 	 * 			    null if start isn't in graph
 	 */
 	public static <V,E> List<V> randomWalk(Graph<V,E> g, V start, int steps) {
+		// A frozen graph can index straight into its neighbors, so no need to iterate to the chosen one
+		if (g instanceof CsrGraph) return new RandomWalker<V,E>((CsrGraph<V,E>) g).walk(start, steps);
 		// check if start is in the graph and steps > 0
 		if (!g.hasVertex(start) || steps < 0) return null;
 		
@@ -30,7 +35,7 @@ public class GraphLib {
 			if (g.outDegree(current) == 0) return path;	
 			else {
 				// Choose a random index 
-				int random = (int)(g.outDegree(current) * Math.random());
+				int random = ThreadLocalRandom.current().nextInt(g.outDegree(current));	// the thread's own generator, not a shared one
 				Iterator<V> iter = g.outNeighbors(current).iterator();
 				V next = iter.next();
 				// Iterate this many times
@@ -55,7 +60,7 @@ public class GraphLib {
 		// Add all the vertices to the list
 		for (V vertex: g.vertices()) vertices.add(vertex);
 		// Sort the vertices by descending in-degree
-		vertices.sort((V v1, V v2) -> g.inDegree(v2) - g.inDegree(v1));
+		vertices.sort((V v1, V v2) -> Integer.compare(g.inDegree(v2), g.inDegree(v1)));
 		return vertices;
 	}
 	/*
@@ -63,26 +68,16 @@ public class GraphLib {
 	 * @param fileName 	
 	 * @return 	Map of ID -> name
 	 */
+	@SuppressWarnings("unchecked")
 	public static <E> Map<E,E> id2Name(String fileName) throws IOException {
 		// Create a new map
 		Map<E,E> id2Name = new HashMap<E,E>();
-		BufferedReader input= null;
-		try {	// Try to read the file
-			input = new BufferedReader(new FileReader(fileName));
-			String line;
-			while ((line = input.readLine()) != null) {
-				@SuppressWarnings("unchecked")
-				// Parse each line into ID and name
-				E [] parse = (E[]) line.split("\\|");	
-				id2Name.put(parse[0], parse[1]);		// put it in the map
-			}
+		try {	// Stream the rows into the map
+			PipeFileReader.readIdNames(fileName, (int id, String name) -> id2Name.put((E) Integer.toString(id), (E) name));
 		}
 		catch (FileNotFoundException e) {	// Catch the error if file not found
 			System.out.println("File not found in directory.");
 		}
-		finally {	//with a try/catch, you need to close the input no matter what
-			if (input!= null) input.close();
-		}
 		return id2Name;
 	}
 	/*
@@ -95,37 +90,84 @@ public class GraphLib {
 	public static <E> Map<E,List<E>> movie2Actors (String fileName, Map<E,E> id2Actor, Map<E,E> id2Movie) throws IOException {
 		// Create a new map
 		Map<E,List<E>> movie2Actor = new HashMap<E,List<E>>();
-		@SuppressWarnings("resource")
-		BufferedReader input = null; 
-		
-		try {	// try to read the file
-			input = new BufferedReader(new FileReader(fileName)); 
-			String line;
-			while ((line = input.readLine()) != null) {
-				@SuppressWarnings("unchecked")
-				E [] parse = (E[]) line.split("\\|");
-				E movie = id2Movie.get(parse[0]);
-				E actor = id2Actor.get(parse[1]);
+		try {	// Stream the rows into the map
+			PipeFileReader.readIdPairs(fileName, (int movieId, int actorId) -> {
+				E movie = id2Movie.get(Integer.toString(movieId));
+				E actor = id2Actor.get(Integer.toString(actorId));
 				// Update the map
-				if (movie2Actor.containsKey(movie)) {
-					movie2Actor.get(movie).add(actor);
-				}
-				else { 
-					movie2Actor.put(movie, new ArrayList<E>());
-					movie2Actor.get(movie).add(actor);
-				}
-			}
+				movie2Actor.computeIfAbsent(movie, m -> new ArrayList<E>()).add(actor);
+			});
 		}
 		catch (FileNotFoundException e) {	// catch error if file not found
 				System.out.println("File not found in directory");
 		}
-		finally { 	// close file regardless
-			if(input != null) input.close(); 
-		}
 		return movie2Actor;
 	}
-		
-		
+	/*
+	 * Streams the three input files straight into a co-star CsrGraph, without building the intermediate maps
+	 * Credits naming an unknown movie or actor id are skipped
+	 * @param moviesFile		id|title rows
+	 * @param actorsFile		id|name rows
+	 * @param movieActorsFile	movie id|actor id rows
+	 * @return CsrGraph<String,Set<String>> g
+	 */
+	public static CsrGraph<String, Set<String>> loadCsrGraph(String moviesFile, String actorsFile, String movieActorsFile) throws IOException {
+		return loadCredits(moviesFile, actorsFile, movieActorsFile).build();
+	}
+	/*
+	 * Streams the three input files into an actor-movie BipartiteGraph, without expanding casts into co-star edges
+	 * Credits naming an unknown movie or actor id are skipped
+	 * @param moviesFile		id|title rows
+	 * @param actorsFile		id|name rows
+	 * @param movieActorsFile	movie id|actor id rows
+	 * @return BipartiteGraph<String,String> g
+	 */
+	public static BipartiteGraph<String, String> loadBipartiteGraph(String moviesFile, String actorsFile, String movieActorsFile) throws IOException {
+		return loadCredits(moviesFile, actorsFile, movieActorsFile).buildBipartite();
+	}
+	/*
+	 * Streams the three input files into a graph builder
+	 */
+	private static CostarGraphBuilder<String,String> loadCredits(String moviesFile, String actorsFile, String movieActorsFile) throws IOException {
+		CostarGraphBuilder<String,String> builder = new CostarGraphBuilder<String,String>();
+		// File ids -> builder ids
+		IntIntMap actorIds = new IntIntMap(), movieIds = new IntIntMap();
+		PipeFileReader.readIdNames(actorsFile, (int id, String name) -> actorIds.put(id, builder.addActor(name)));
+		PipeFileReader.readIdNames(moviesFile, (int id, String title) -> movieIds.put(id, builder.addMovie(title)));
+		PipeFileReader.readIdPairs(movieActorsFile, (int movieId, int actorId) -> {
+			int movie = movieIds.get(movieId, -1), actor = actorIds.get(actorId, -1);
+			if (movie >= 0 && actor >= 0) builder.addCredit(movie, actor);
+		});
+		return builder;
+	}
+	/*
+	 * Content hash (SHA-256) of the given files, in order; changes whenever any of them does
+	 * @param fileNames
+	 * @return 32-byte digest
+	 */
+	public static byte[] contentHash(String... fileNames) throws IOException {
+		MessageDigest digest = sha256();
+		byte[] buffer = new byte[1 << 16];
+		for (String fileName : fileNames) {
+			try (InputStream input = new FileInputStream(fileName)) {
+				int n;
+				while ((n = input.read(buffer)) > 0) digest.update(buffer, 0, n);
+			}
+			digest.update((byte) 0);	// so moving bytes from the end of one file to the start of the next changes the hash
+		}
+		return digest.digest();
+	}
+	/*
+	 * A fresh SHA-256 digest
+	 */
+	static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {	// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
 
 	/*
 	 * Uses the Map of Movie -> Set<Actor> to build a graph
@@ -157,6 +199,23 @@ public class GraphLib {
 		}
 		return g;
 	}
+	/*
+	 * Same graph as buildGraph, but frozen into a read-only CsrGraph
+	 * @param id2Actor map
+	 * @param movie2Actors map
+	 * @return CsrGraph<E,Set<E>> g
+	 */
+	public static <E> CsrGraph<E, Set<E>> buildCsrGraph(Map<E,E> id2Actor, Map<E,List<E>> movie2Actors) {
+		CostarGraphBuilder<E,E> builder = new CostarGraphBuilder<E,E>();
+		// Add all the actor names as vertices in the graph
+		for (E actor : id2Actor.values()) builder.addActor(actor);
+		// Add each movie's cast as credits
+		for (E movie : movie2Actors.keySet()) {
+			int m = builder.addMovie(movie);
+			for (E actor : movie2Actors.get(movie)) builder.addCredit(m, builder.addActor(actor));
+		}
+		return builder.build();
+	}
 	/** Breadth First Search
 	 * 
 	 * @param g -- graph to search
@@ -182,12 +241,68 @@ public class GraphLib {
 					queue.add(v); //enqueue neighbor
 					pathTree.insertVertex(v);//create a vertex for this child in the pathTree 
 					pathTree.insertDirected(v, u, g.getLabel(v, u)); //create a directed edge from the child to the parent
-					pathTree.insertDirected(v, u, (E) new HashSet<E>());
 				}
 			}
 		}
 		return pathTree;
 	}
+	/*
+	 * Shortest path between two vertices, by breadth first search from both ends at once
+	 * Each round expands one whole level of the smaller frontier, stopping once the two sides meet
+	 * (BidirectionalSearch does the same over the int ids of a CsrGraph, without the hash maps)
+	 * @return list of vertices from source to target; empty if there is no path
+	 */
+	public static <V,E> List<V> bidirectionalPath(Graph<V,E> g, V source, V target) {
+		List<V> path = new ArrayList<V>();
+		if (!g.hasVertex(source) || !g.hasVertex(target)) return path;
+		if (source.equals(target)) {
+			path.add(source);
+			return path;
+		}
+		// For each side: parent and distance of every vertex it has reached, and its current frontier
+		List<Map<V,V>> parents = new ArrayList<Map<V,V>>();
+		List<Map<V,Integer>> distances = new ArrayList<Map<V,Integer>>();
+		List<List<V>> frontiers = new ArrayList<List<V>>();
+		for (V start : Arrays.asList(source, target)) {
+			Map<V,V> parent = new HashMap<V,V>();
+			parent.put(start, null);
+			parents.add(parent);
+			Map<V,Integer> distance = new HashMap<V,Integer>();
+			distance.put(start, 0);
+			distances.add(distance);
+			frontiers.add(new ArrayList<V>(Arrays.asList(start)));
+		}
+		int best = Integer.MAX_VALUE;
+		V meetFrom = null, meetTo = null;		// shortest meeting found: edge meetFrom (source side) - meetTo (target side)
+		while (!frontiers.get(0).isEmpty() && !frontiers.get(1).isEmpty() && best == Integer.MAX_VALUE) {
+			// Expand the smaller frontier by one whole level
+			int side = frontiers.get(0).size() <= frontiers.get(1).size() ? 0 : 1, other = 1 - side;
+			List<V> next = new ArrayList<V>();
+			for (V u : frontiers.get(side)) {
+				for (V v : g.outNeighbors(u)) {
+					if (distances.get(other).containsKey(v)) {	// the sides meet along u - v
+						int length = distances.get(side).get(u) + 1 + distances.get(other).get(v);
+						if (length < best) {
+							best = length;
+							meetFrom = side == 0 ? u : v;
+							meetTo = side == 0 ? v : u;
+						}
+					}
+					if (!distances.get(side).containsKey(v)) {
+						distances.get(side).put(v, distances.get(side).get(u) + 1);
+						parents.get(side).put(v, u);
+						next.add(v);
+					}
+				}
+			}
+			frontiers.set(side, next);
+		}
+		if (meetFrom == null) return path;
+		// Walk back from the meeting edge to both ends
+		for (V v = meetFrom; v != null; v = parents.get(0).get(v)) path.add(0, v);
+		for (V v = meetTo; v != null; v = parents.get(1).get(v)) path.add(v);
+		return path;
+	}
 	/*
 	 * Given a shortest path tree and a vertex, construct a path from the vertex back to the center of the universe
 	 */
@@ -223,20 +338,32 @@ public class GraphLib {
 	 * The average distance-from-root in a shortest path tree
 	 */
 	public static <V,E> double averageSeparation(Graph<V,E> tree, V root) {
-		int totalDistance = averageSeparationHelper(tree, root, 0);
-		return (double)totalDistance/(tree.numVertices()-1);
+		return separationStats(tree, root).averageSeparation();
 	}
 	/*
-	 * Helper function: The average distance-from-root in a shortest path tree 
+	 * Summary of the distances-from-root in a shortest path tree (whose edges point from child to parent), in one pass
+	 * Goes down the tree level by level with a queue rather than recursing, so a long chain can't overflow the stack
 	 */
-	private static <V,E> int averageSeparationHelper(Graph<V,E> tree, V root, int total) {
-		int sum = total+1;	// the distance at this level of recursion
-		// Recurse over each of the child, passing in the current distance
-		// and accumulating the total distance in the 'total' instance variable
-		for (V child: tree.inNeighbors(root)) {
-			total += averageSeparationHelper(tree, child, sum);	
+	public static <V,E> SeparationStats separationStats(Graph<V,E> tree, V root) {
+		int[] histogram = new int[1];
+		long totalDistance = 0;
+		int reached = 0;
+		List<V> level = new ArrayList<V>();
+		level.add(root);
+		for (int d = 0; !level.isEmpty(); d++) {
+			if (d == histogram.length) histogram = Arrays.copyOf(histogram, 2 * d);
+			histogram[d] = level.size();
+			reached += level.size();
+			totalDistance += (long) d * level.size();
+			List<V> next = new ArrayList<V>();
+			for (V v : level) {
+				for (V child : tree.inNeighbors(v)) next.add(child);	// children point in to their parent
+			}
+			level = next;
 		}
-		return total;
+		int eccentricity = histogram.length - 1;
+		while (eccentricity > 0 && histogram[eccentricity] == 0) eccentricity--;
+		return new SeparationStats(reached, totalDistance, Arrays.copyOf(histogram, eccentricity + 1));
 	}
 
 	public static void main(String[] args) throws Exception{
@@ -278,6 +405,7 @@ public class GraphLib {
 		System.out.println(missingVertices(graph, tree) + "\n");
 		// Get the average separation
 		System.out.println(averageSeparation(tree, "Kevin Bacon"));
+		System.out.println(separationStats(tree, "Kevin Bacon"));
 		
 		
 		
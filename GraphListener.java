@@ -0,0 +1,18 @@
+/**
+ * Told about each change to a mutable IndexedGraph (such as IndexedAdjacencyGraph), by vertex id, just after
+ * it is made, so that whatever was computed from the graph can be dropped or repaired rather than rebuilt
+ * Edges are undirected, so each edge added or removed is reported once; replacing the label on an edge that
+ * is already there isn't a change to the graph's shape, and isn't reported
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public interface GraphListener {
+	/** A vertex was added, with the next id */
+	public void vertexInserted(int id);
+
+	/** An edge was added between u and v */
+	public void edgeInserted(int u, int v);
+
+	/** The edge between u and v was removed */
+	public void edgeRemoved(int u, int v);
+}
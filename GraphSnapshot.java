@@ -0,0 +1,205 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Saves a built co-star graph to a compact binary file, and loads it back without re-parsing the text inputs
+ * or rebuilding the movie cliques
+ * File layout (big-endian, every section a whole number of ints):
+ *   magic, version, 32-byte key (content hash of the inputs), vertex count n, movie count m, edge count e,
+ *   label entry count l;
+ *   actor name table and movie title table, each as n+1 (or m+1) byte offsets then UTF-8 bytes padded to an int;
+ *   CSR offsets (n+1 ints) and targets (e ints), as in CsrGraph;
+ *   label offsets (e+1 ints) and label movie ids (l ints): the movies on edge k are ids[loff[k]] .. ids[loff[k+1]-1]
+ * The file is memory-mapped, but reading it still decodes the names, copies the int sections onto the heap (the
+ * searches run over plain int arrays) and makes each edge's label; that is one pass over the file, in place of
+ * parsing the text and building the graph
+ * Every section is checked against what is left of the file, and every offset and id against the counts, so a
+ * truncated or corrupt snapshot is treated as missing, and the graph rebuilt, rather than failing
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class GraphSnapshot {
+	private static final int MAGIC = 0x4B424753;		// "KBGS"
+	private static final int VERSION = 1;
+	private static final int HASH = 32;				// bytes in a SHA-256 digest
+
+	/**
+	 * Saves the graph, replacing the file only once it has been completely written
+	 * @param g			graph to save
+	 * @param key		content hash of the inputs the graph was built from (see GraphLib.contentHash)
+	 * @param fileName	snapshot file
+	 */
+	public static void write(CsrGraph<String, Set<String>> g, byte[] key, String fileName) throws IOException {
+		int n = g.numVertices(), e = g.numEdges();
+		// Number the movies, and flatten the labels into movie ids
+		List<String> movies = new ArrayList<String>();
+		Map<String, Integer> movieIds = new HashMap<String, Integer>();
+		int[] labelOffsets = new int[e + 1];
+		int[] labelMovies = new int[16];
+		for (int k = 0; k < e; k++) {
+			Set<String> label = g.labelAt(k);
+			if (labelMovies.length < labelOffsets[k] + label.size()) labelMovies = Arrays.copyOf(labelMovies, 2 * (labelOffsets[k] + label.size()));
+			int l = labelOffsets[k];
+			for (String movie : label) {
+				Integer id = movieIds.get(movie);
+				if (id == null) {
+					id = movies.size();
+					movies.add(movie);
+					movieIds.put(movie, id);
+				}
+				labelMovies[l++] = id;
+			}
+			labelOffsets[k + 1] = l;
+		}
+		List<String> actors = new ArrayList<String>(n);
+		for (int id = 0; id < n; id++) actors.add(g.vertexAt(id));
+
+		Path path = Paths.get(fileName);
+		Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp.toFile()), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.write(key);
+			out.writeInt(n);
+			out.writeInt(movies.size());
+			out.writeInt(e);
+			out.writeInt(labelOffsets[e]);
+			writeStrings(out, actors);
+			writeStrings(out, movies);
+			writeInts(out, g.offsets(), n + 1);
+			writeInts(out, g.targets(), e);
+			writeInts(out, labelOffsets, e + 1);
+			writeInts(out, labelMovies, labelOffsets[e]);
+		}
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Loads a saved graph from the memory-mapped file, if it exists, was built from these inputs and holds together
+	 * The labels come back as MovieSets over the saved movie table
+	 * @param fileName	snapshot file
+	 * @param key		content hash of the inputs (see GraphLib.contentHash)
+	 * @return			the graph, or null if the file is missing, stale, truncated or corrupt
+	 */
+	@SuppressWarnings("unchecked")
+	public static CsrGraph<String, Set<String>> read(String fileName, byte[] key) throws IOException {
+		Path path = Paths.get(fileName);
+		if (!Files.isReadable(path)) return null;
+		ByteBuffer buf;
+		try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+			buf = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+		}
+		if (buf.remaining() < 4 + 4 + HASH + 16 || buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+		byte[] k = new byte[HASH];
+		buf.get(k);
+		if (!Arrays.equals(k, key)) return null;
+		int n = buf.getInt(), m = buf.getInt(), e = buf.getInt(), l = buf.getInt();
+		if (n < 0 || m < 0 || e < 0 || l < 0) return null;
+
+		String[] actors = readStrings(buf, n);
+		String[] movies = readStrings(buf, m);
+		int[] offsets = readInts(buf, n + 1L);
+		int[] targets = readInts(buf, e);
+		int[] labelOffsets = readInts(buf, e + 1L);
+		int[] labelMovies = readInts(buf, l);
+		if (actors == null || movies == null || offsets == null || targets == null || labelOffsets == null || labelMovies == null) return null;	// cut short
+		if (!ascending(offsets, e) || !ascending(labelOffsets, l) || !within(targets, n) || !within(labelMovies, m)) return null;
+
+		// Rebuild the labels, sharing one between the two directions of each edge
+		Set<String>[] labels = (Set<String>[]) new Set<?>[e];
+		for (int u = 0; u < n; u++) {
+			for (int j = offsets[u]; j < offsets[u + 1]; j++) {
+				int v = targets[j];
+				if (v < u) {	// v's edges are done, so share the label it already has for u
+					int reverse = Arrays.binarySearch(targets, offsets[v], offsets[v + 1], u);
+					if (reverse < 0) return null;		// no edge back from v
+					labels[j] = labels[reverse];
+				}
+				else if (labelOffsets[j + 1] - labelOffsets[j] == 1) {	// by far the most common case
+					labels[j] = MovieSet.of(movies, labelMovies[labelOffsets[j]]);
+				}
+				else {
+					labels[j] = MovieSet.of(movies, Arrays.copyOfRange(labelMovies, labelOffsets[j], labelOffsets[j + 1]));
+				}
+			}
+		}
+		return new CsrGraph<String, Set<String>>(actors, offsets, targets, labels);
+	}
+
+	/**
+	 * Writes a string table: count+1 byte offsets, then the UTF-8 bytes padded to a whole number of ints
+	 */
+	private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		out.writeInt(0);
+		for (String s : strings) {
+			bytes.write(s.getBytes(StandardCharsets.UTF_8));
+			out.writeInt(bytes.size());
+		}
+		while (bytes.size() % 4 != 0) bytes.write(0);
+		bytes.writeTo(out);
+	}
+
+	/**
+	 * Writes the first count ints of the array
+	 */
+	private static void writeInts(DataOutputStream out, int[] ints, int count) throws IOException {
+		for (int i = 0; i < count; i++) out.writeInt(ints[i]);
+	}
+
+	/**
+	 * Whether offsets run from 0 up to end without ever going down
+	 */
+	private static boolean ascending(int[] offsets, int end) {
+		if (offsets[0] != 0 || offsets[offsets.length - 1] != end) return false;
+		for (int i = 1; i < offsets.length; i++) {
+			if (offsets[i] < offsets[i - 1]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Whether every id is between 0 and count-1
+	 */
+	private static boolean within(int[] ids, int count) {
+		for (int id : ids) {
+			if (id < 0 || id >= count) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a string table written by writeStrings, leaving the buffer just past it
+	 * @return		the strings, or null if the table doesn't fit in what is left of the buffer
+	 */
+	private static String[] readStrings(ByteBuffer buf, int count) {
+		int[] offsets = readInts(buf, count + 1L);
+		if (offsets == null || !ascending(offsets, offsets[count])) return null;
+		int padded = offsets[count] + (4 - offsets[count] % 4) % 4;
+		if (padded < 0 || padded > buf.remaining()) return null;
+		byte[] bytes = new byte[offsets[count]];
+		buf.get(bytes);
+		buf.position(buf.position() + (4 - bytes.length % 4) % 4);	// skip the padding
+		String[] strings = new String[count];
+		for (int i = 0; i < count; i++) strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+		return strings;
+	}
+
+	/**
+	 * Bulk-copies count ints out of the buffer, leaving it just past them
+	 * @return		the ints, or null if there aren't that many left in the buffer
+	 */
+	private static int[] readInts(ByteBuffer buf, long count) {
+		if (4 * count > buf.remaining()) return null;
+		int[] ints = new int[(int) count];
+		IntBuffer view = buf.asIntBuffer();
+		view.get(ints);
+		buf.position(buf.position() + 4 * ints.length);
+		return ints;
+	}
+}
@@ -0,0 +1,368 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Mutable implementation of the IndexedGraph interface, for undirected graphs that change after they are built
+ * Vertices are numbered 0..n-1 in the order they were added, and keep their ids for good (so a vertex can't be
+ * removed, only its edges); each vertex's neighbor ids are kept in a growable int array, in no particular order,
+ * with the label on each of those edges at the same index of a parallel array, so searches run over the ids
+ * much as over a CsrGraph
+ * Adding or removing an edge costs time proportional to the degrees of its ends, and is reported to the
+ * registered GraphListeners
+ * The graph can hand out read-only snapshots of itself that later changes don't show through, copying next to
+ * nothing: the per-vertex arrays are kept in chunks of 1024 vertices, a snapshot shares all the chunks, and
+ * only the first change to a chunk (or to a vertex's arrays) after a snapshot copies it
+ * Not synchronized: changes must not overlap with anything else reading the graph itself, though snapshots can
+ * be read by any number of threads while it changes
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class IndexedAdjacencyGraph<V,E> implements IndexedGraph<V,E> {
+	private static final int CHUNK_BITS = 10, CHUNK = 1 << CHUNK_BITS;	// vertices per chunk
+	private static final int[] NO_NEIGHBORS = new int[0];
+	private static final Object[] NO_LABELS = new Object[0];
+
+	private final boolean frozen;					// whether this is a read-only snapshot
+	private Object[][] vertices;					// chunk -> vertices, by id within the chunk
+	private final Map<V, Integer> ids;				// vertex -> id, shared with snapshots (which ignore ids past their own)
+	private int[][][] neighbors;					// chunk -> neighbor ids of each vertex; only the first degree are edges
+	private Object[][][] labels;					// chunk -> edge labels of each vertex, parallel to neighbors
+	private int[][] degrees;						// chunk -> degree of each vertex
+	private int[][] stamps;						// chunk -> epoch in which each vertex's arrays were last copied
+	private int[] chunkStamps;						// chunk -> epoch in which it was last copied
+	private int epoch = 0;							// number of snapshots taken; chunks and arrays from before are shared
+	private int numVertices = 0;
+	private int numEdges = 0;						// counting each direction, as for the other graphs
+	private final List<GraphListener> listeners;
+
+	/**
+	 * Default constructor, creating an empty graph
+	 */
+	public IndexedAdjacencyGraph() {
+		frozen = false;
+		vertices = new Object[1][];
+		ids = new ConcurrentHashMap<V, Integer>();
+		neighbors = new int[1][][];
+		labels = new Object[1][][];
+		degrees = new int[1][];
+		stamps = new int[1][];
+		chunkStamps = new int[1];
+		listeners = new CopyOnWriteArrayList<GraphListener>();
+	}
+
+	/**
+	 * A read-only snapshot of a graph, sharing its chunks
+	 */
+	private IndexedAdjacencyGraph(IndexedAdjacencyGraph<V,E> g) {
+		frozen = true;
+		int chunks = (g.numVertices + CHUNK - 1) >>> CHUNK_BITS;
+		vertices = Arrays.copyOf(g.vertices, chunks);
+		ids = g.ids;
+		neighbors = Arrays.copyOf(g.neighbors, chunks);
+		labels = Arrays.copyOf(g.labels, chunks);
+		degrees = Arrays.copyOf(g.degrees, chunks);
+		numVertices = g.numVertices;
+		numEdges = g.numEdges;
+		listeners = Collections.emptyList();
+	}
+
+	/**
+	 * A read-only copy of the graph as it is now, which later changes to the graph don't affect; taking one costs
+	 * time proportional to the number of chunks, and the changes after it copy what they touch
+	 */
+	public IndexedAdjacencyGraph<V,E> snapshot() {
+		if (frozen) return this;
+		IndexedAdjacencyGraph<V,E> snapshot = new IndexedAdjacencyGraph<V,E>(this);
+		epoch++;	// everything is now shared with the snapshot
+		return snapshot;
+	}
+
+	/** Whether this is a read-only snapshot */
+	public boolean frozen() {
+		return frozen;
+	}
+
+	/**
+	 * Registers a listener, to be told of every later change
+	 */
+	public void addListener(GraphListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Unregisters a listener
+	 */
+	public void removeListener(GraphListener listener) {
+		listeners.remove(listener);
+	}
+
+	public int numVertices() {
+		return numVertices;
+	}
+
+	public int numEdges() {
+		return numEdges;
+	}
+
+	public Iterable<V> vertices() {
+		return new AbstractList<V>() {
+			public V get(int id) {
+				if (id < 0 || id >= numVertices) throw new IndexOutOfBoundsException(id);
+				return vertexAt(id);
+			}
+			public int size() {
+				return numVertices;
+			}
+		};
+	}
+
+	public boolean hasVertex(V v) {
+		return indexOf(v) >= 0;
+	}
+
+	public int outDegree(V v) {
+		return degree(id(v));
+	}
+
+	public int inDegree(V v) {
+		return degree(id(v));
+	}
+
+	public Iterable<V> outNeighbors(V v) {
+		return adjacent(id(v));
+	}
+
+	public Iterable<V> inNeighbors(V v) {
+		return adjacent(id(v));
+	}
+
+	public boolean hasEdge(V u, V v) {
+		int j = indexOf(v);
+		return j >= 0 && edgeIndex(id(u), j) >= 0;
+	}
+
+	public E getLabel(V u, V v) {
+		int j = indexOf(v);
+		if (j < 0) return null;
+		int i = id(u), k = edgeIndex(i, j);
+		return k < 0 ? null : labelAt(i, k);
+	}
+
+	public void insertVertex(V v) {
+		checkMutable();
+		if (ids.containsKey(v)) return;
+		int id = numVertices, c = id >>> CHUNK_BITS, i = id & (CHUNK - 1);
+		if (i == 0) {	// first vertex of a new chunk
+			if (c == neighbors.length) {
+				vertices = Arrays.copyOf(vertices, 2 * c);
+				neighbors = Arrays.copyOf(neighbors, 2 * c);
+				labels = Arrays.copyOf(labels, 2 * c);
+				degrees = Arrays.copyOf(degrees, 2 * c);
+				stamps = Arrays.copyOf(stamps, 2 * c);
+				chunkStamps = Arrays.copyOf(chunkStamps, 2 * c);
+			}
+			vertices[c] = new Object[CHUNK];
+			neighbors[c] = new int[CHUNK][];
+			labels[c] = new Object[CHUNK][];
+			degrees[c] = new int[CHUNK];
+			stamps[c] = new int[CHUNK];
+			chunkStamps[c] = epoch;
+		}
+		else own(c);
+		vertices[c][i] = v;		// past the end of any snapshot sharing the chunk, so unseen by it
+		neighbors[c][i] = NO_NEIGHBORS;
+		labels[c][i] = NO_LABELS;
+		stamps[c][i] = epoch;
+		numVertices++;
+		ids.put(v, id);
+		for (GraphListener listener : listeners) listener.vertexInserted(id);
+	}
+
+	public void insertDirected(V u, V v, E e) {
+		throw new UnsupportedOperationException("IndexedAdjacencyGraph is undirected");
+	}
+
+	public void insertUndirected(V u, V v, E e) {
+		checkMutable();
+		int i = id(u), j = id(v);
+		int k = edgeIndex(i, j);
+		if (k >= 0) {	// already there: just relabel both directions
+			ownVertex(i);
+			labels[i >>> CHUNK_BITS][i & (CHUNK - 1)][k] = e;
+			ownVertex(j);
+			labels[j >>> CHUNK_BITS][j & (CHUNK - 1)][edgeIndex(j, i)] = e;
+			return;
+		}
+		append(i, j, e);
+		if (i != j) append(j, i, e);
+		for (GraphListener listener : listeners) listener.edgeInserted(i, j);
+	}
+
+	/**
+	 * The graph keeps vertex ids for good, so vertices can't be removed
+	 */
+	public void removeVertex(V v) {
+		throw new UnsupportedOperationException("IndexedAdjacencyGraph can't remove vertices, only their edges");
+	}
+
+	public void removeDirected(V u, V v) {
+		throw new UnsupportedOperationException("IndexedAdjacencyGraph is undirected");
+	}
+
+	public void removeUndirected(V u, V v) {
+		checkMutable();
+		int i = id(u), j = id(v);
+		if (edgeIndex(i, j) < 0) return;
+		remove(i, j);
+		if (i != j) remove(j, i);
+		for (GraphListener listener : listeners) listener.edgeRemoved(i, j);
+	}
+
+	public int indexOf(V v) {
+		Integer i = ids.get(v);
+		return i == null || i >= numVertices ? -1 : i;	// a snapshot doesn't have vertices added after it
+	}
+
+	@SuppressWarnings("unchecked")
+	public V vertexAt(int id) {
+		return (V) vertices[id >>> CHUNK_BITS][id & (CHUNK - 1)];
+	}
+
+	/** How many edges from the vertex with this id */
+	public int degree(int id) {
+		return degrees[id >>> CHUNK_BITS][id & (CHUNK - 1)];
+	}
+
+	/** The neighbor ids of the vertex with this id (shared, not a copy); only the first degree(id) are meaningful */
+	public int[] neighbors(int id) {
+		return neighbors[id >>> CHUNK_BITS][id & (CHUNK - 1)];
+	}
+
+	/** The label on the edge to the k-th neighbor of the vertex with this id */
+	@SuppressWarnings("unchecked")
+	public E labelAt(int id, int k) {
+		return (E) labels[id >>> CHUNK_BITS][id & (CHUNK - 1)][k];
+	}
+
+	/** The index among the neighbors of u of the edge to v, or -1 if there is none */
+	public int edgeIndex(int u, int v) {
+		int[] adjacent = neighbors(u);
+		for (int k = 0, d = degree(u); k < d; k++) {
+			if (adjacent[k] == v) return k;
+		}
+		return -1;
+	}
+
+	/**
+	 * Complains about a change to a snapshot
+	 */
+	private void checkMutable() {
+		if (frozen) throw new UnsupportedOperationException("Graph snapshots are read-only");
+	}
+
+	/**
+	 * Copies a chunk, if it is shared with a snapshot, so it can be changed
+	 */
+	private void own(int c) {
+		if (chunkStamps[c] == epoch) return;
+		neighbors[c] = neighbors[c].clone();
+		labels[c] = labels[c].clone();
+		degrees[c] = degrees[c].clone();
+		stamps[c] = stamps[c].clone();
+		chunkStamps[c] = epoch;
+	}
+
+	/**
+	 * Copies a vertex's arrays (and their chunk), if they are shared with a snapshot, so they can be changed
+	 */
+	private void ownVertex(int id) {
+		int c = id >>> CHUNK_BITS, i = id & (CHUNK - 1);
+		own(c);
+		if (stamps[c][i] == epoch) return;
+		neighbors[c][i] = neighbors[c][i].clone();
+		labels[c][i] = labels[c][i].clone();
+		stamps[c][i] = epoch;
+	}
+
+	/**
+	 * Adds v to the end of u's neighbors, growing the arrays if need be
+	 */
+	private void append(int u, int v, E e) {
+		ownVertex(u);
+		int c = u >>> CHUNK_BITS, i = u & (CHUNK - 1), d = degrees[c][i];
+		if (d == neighbors[c][i].length) {
+			neighbors[c][i] = Arrays.copyOf(neighbors[c][i], Math.max(4, 2 * d));
+			labels[c][i] = Arrays.copyOf(labels[c][i], Math.max(4, 2 * d));
+		}
+		neighbors[c][i][d] = v;
+		labels[c][i][d] = e;
+		degrees[c][i]++;
+		numEdges++;
+	}
+
+	/**
+	 * Removes v from u's neighbors, moving the last neighbor into its place
+	 */
+	private void remove(int u, int v) {
+		ownVertex(u);
+		int c = u >>> CHUNK_BITS, i = u & (CHUNK - 1);
+		int k = edgeIndex(u, v), last = --degrees[c][i];
+		neighbors[c][i][k] = neighbors[c][i][last];
+		labels[c][i][k] = labels[c][i][last];
+		labels[c][i][last] = null;
+		numEdges--;
+	}
+
+	/**
+	 * Looks up a vertex's id, complaining if it isn't in the graph
+	 */
+	private int id(V v) {
+		int i = indexOf(v);
+		if (i < 0) throw new IllegalArgumentException("No such vertex " + v);
+		return i;
+	}
+
+	/**
+	 * An iterable view of the neighbors of the vertex with this id
+	 */
+	private Iterable<V> adjacent(int id) {
+		int[] adjacent = neighbors(id);
+		int degree = degree(id);
+		return new Iterable<V>() {
+			public Iterator<V> iterator() {
+				return new Iterator<V>() {
+					int k = 0;
+					public boolean hasNext() {
+						return k < degree;
+					}
+					public V next() {
+						if (k >= degree) throw new NoSuchElementException();
+						return vertexAt(adjacent[k++]);
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Returns a string representation of the vertex and edge lists.
+	 */
+	public String toString() {
+		StringBuilder edges = new StringBuilder("{");
+		for (int i = 0; i < numVertices; i++) {
+			if (i > 0) edges.append(", ");
+			edges.append(vertexAt(i)).append("={");
+			for (int k = 0; k < degree(i); k++) {
+				if (k > 0) edges.append(", ");
+				edges.append(vertexAt(neighbors(i)[k])).append('=').append(labelAt(i, k));
+			}
+			edges.append('}');
+		}
+		edges.append('}');
+		return "Vertices: " + vertices() + "\nOut edges: " + edges;
+	}
+}
@@ -0,0 +1,16 @@
+/**
+ * A graph whose vertices are also numbered 0..numVertices()-1, so that algorithms can keep
+ * their per-vertex state in plain int arrays instead of hash maps keyed by vertex
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public interface IndexedGraph<V,E> extends Graph<V,E> {
+	/** The id of the vertex, or -1 if it isn't in the graph */
+	public int indexOf(V v);
+
+	/** The vertex with the given id */
+	public V vertexAt(int id);
+}
@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+/**
+ * Minimal open-addressing hash map from int keys to int values, without boxing
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class IntIntMap {
+	private static final int FREE = Integer.MIN_VALUE;	// marks an empty slot, so it can't be used as a key
+
+	private int[] keys, values;
+	private int size = 0;
+
+	public IntIntMap() {
+		this(16);
+	}
+
+	/**
+	 * @param expected	number of entries to make room for up front
+	 */
+	public IntIntMap(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, FREE);
+	}
+
+	/** How many entries are in the map */
+	public int size() {
+		return size;
+	}
+
+	/** The value for the key, or missing if there is none */
+	public int get(int key, int missing) {
+		int mask = keys.length - 1;
+		for (int i = mix(key) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+			if (keys[i] == key) return values[i];
+		}
+		return missing;
+	}
+
+	/** Adds (or replaces) the value for the key */
+	public void put(int key, int value) {
+		if (key == FREE) throw new IllegalArgumentException("Key " + key + " is reserved");
+		if (2 * (size + 1) > keys.length) grow();
+		int mask = keys.length - 1;
+		int i = mix(key) & mask;
+		while (keys[i] != FREE && keys[i] != key) i = (i + 1) & mask;
+		if (keys[i] == FREE) size++;
+		keys[i] = key;
+		values[i] = value;
+	}
+
+	/**
+	 * Doubles the table, reinserting every entry
+	 */
+	private void grow() {
+		int[] oldKeys = keys, oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		values = new int[oldKeys.length * 2];
+		Arrays.fill(keys, FREE);
+		size = 0;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE) put(oldKeys[i], oldValues[i]);
+		}
+	}
+
+	/**
+	 * Spreads the key's bits so that runs of consecutive ids don't cluster
+	 */
+	private static int mix(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
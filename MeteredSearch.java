@@ -0,0 +1,57 @@
+/**
+ * A PathSearch that times every search it passes on, and records how much of the graph each one touched
+ * (vertices reached and, over a CsrGraph, edges scanned) in histograms named after the search
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class MeteredSearch<V,E> implements PathSearch<V,E> {
+	private final PathSearch<V,E> search;
+	private final Metrics metrics;
+	private final String name;
+
+	/**
+	 * @param search	the search to time
+	 * @param metrics	where to record
+	 * @param name		prefix of the histograms: name (nanoseconds), name.vertices and name.edges
+	 */
+	public MeteredSearch(PathSearch<V,E> search, Metrics metrics, String name) {
+		this.search = search;
+		this.metrics = metrics;
+		this.name = name;
+	}
+
+	public IndexedGraph<V,E> graph() {
+		return search.graph();
+	}
+
+	public ShortestPathTree<V,E> bfs(V source) {
+		long start = System.nanoTime();
+		ShortestPathTree<V,E> tree = search.bfs(source);
+		record(tree, start);
+		return tree;
+	}
+
+	public void bfs(int source, ShortestPathTree<V,E> tree) {
+		long start = System.nanoTime();
+		search.bfs(source, tree);
+		record(tree, start);
+	}
+
+	/**
+	 * Records a finished search; the edges are counted after the clock stops
+	 */
+	private void record(ShortestPathTree<V,E> tree, long start) {
+		metrics.time(name, start);
+		metrics.histogram(name + ".vertices").record(tree.numVertices());
+		if (graph() instanceof CsrGraph) {	// every edge out of a reached vertex was scanned
+			CsrGraph<V,E> g = (CsrGraph<V,E>) graph();
+			int[] order = tree.order();
+			long edges = 0;
+			for (int i = 0; i < tree.numVertices(); i++) edges += g.degree(order[i]);
+			metrics.histogram(name + ".edges").record(edges);
+		}
+	}
+}
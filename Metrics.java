@@ -0,0 +1,211 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.LongSupplier;
+import javax.management.*;
+
+/**
+ * Named counters, gauges and latency histograms for the game's commands and the library stages under them
+ * Counters are LongAdders and histograms are arrays of atomic bucket counts, so recording from many threads is
+ * cheap and takes no locks; names are registered on first use
+ * Each histogram has log-linear buckets as in HdrHistogram: 16 per power of two, so any value is placed within
+ * about 6% and percentiles come out to that precision over the whole range from nanoseconds to hours
+ * The same numbers are readable as a text report (the game's stats command), through JMX as attributes of a
+ * dynamic MBean, and in a file written on exit
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class Metrics implements DynamicMBean {
+	private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<String, LongAdder>();
+	private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<String, LongSupplier>();
+	private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<String, Histogram>();
+
+	/**
+	 * Counts of values in log-linear buckets, plus their exact count, sum and maximum
+	 */
+	public static class Histogram {
+		private static final int SUB = 4;						// log2 of the buckets per power of two
+		private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB + 1) << SUB);
+		private final LongAdder count = new LongAdder(), sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		/** The bucket of a value: the position of its top bit, then the next SUB bits below it */
+		private static int bucket(long value) {
+			if (value < (1L << SUB)) return (int) Math.max(0, value);		// small values get a bucket each
+			int top = 63 - Long.numberOfLeadingZeros(value);
+			return ((top - SUB + 1) << SUB) + (int) ((value >>> (top - SUB)) & ((1 << SUB) - 1));
+		}
+
+		/** The largest value that goes in a bucket */
+		private static long highest(int bucket) {
+			if (bucket < (1 << SUB)) return bucket;
+			int top = (bucket >>> SUB) + SUB - 1;
+			long low = (1L << top) + ((long) (bucket & ((1 << SUB) - 1)) << (top - SUB));
+			return low + (1L << (top - SUB)) - 1;
+		}
+
+		/** Records a value (negative values count as 0) */
+		public void record(long value) {
+			value = Math.max(value, 0);
+			buckets.incrementAndGet(bucket(value));
+			count.increment();
+			sum.add(value);
+			max.accumulate(value);
+		}
+
+		/** Number of values recorded */
+		public long count() {
+			return count.sum();
+		}
+
+		/** Mean of the values recorded */
+		public double mean() {
+			long n = count.sum();
+			return n == 0 ? 0 : (double)sum.sum()/n;
+		}
+
+		/** Largest value recorded */
+		public long max() {
+			return max.get();
+		}
+
+		/**
+		 * The value at or below which a fraction of the values fall, to within a bucket (at most the maximum)
+		 * @param fraction	between 0 and 1, e.g. 0.99 for the 99th percentile
+		 */
+		public long percentile(double fraction) {
+			long n = count.sum(), rank = (long) Math.ceil(fraction * n), seen = 0;
+			if (n == 0) return 0;
+			for (int b = 0; b < buckets.length(); b++) {
+				seen += buckets.get(b);
+				if (seen >= Math.max(1, rank)) return Math.min(highest(b), max.get());
+			}
+			return max.get();
+		}
+	}
+
+	/**
+	 * Adds to a counter, creating it at 0 if need be
+	 */
+	public void count(String name, long delta) {
+		LongAdder counter = counters.get(name);
+		if (counter == null) counter = counters.computeIfAbsent(name, k -> new LongAdder());
+		counter.add(delta);
+	}
+
+	/**
+	 * A histogram, created empty if need be
+	 */
+	public Histogram histogram(String name) {
+		Histogram histogram = histograms.get(name);
+		return histogram != null ? histogram : histograms.computeIfAbsent(name, k -> new Histogram());
+	}
+
+	/**
+	 * Records how long something took, from a start time given by System.nanoTime()
+	 */
+	public void time(String name, long startNanos) {
+		histogram(name).record(System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Registers a value read on demand, e.g. a cache's hit count
+	 */
+	public void gauge(String name, LongSupplier value) {
+		gauges.put(name, value);
+	}
+
+	/**
+	 * All the numbers, one per line: counters and gauges by value, histograms (of nanoseconds, if they are
+	 * timings) by count, mean, median, 99th percentile and maximum
+	 */
+	public String report() {
+		StringBuilder s = new StringBuilder();
+		for (Map.Entry<String, LongAdder> counter : counters.entrySet()) s.append(counter.getKey()).append(" = ").append(counter.getValue().sum()).append('\n');
+		for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) s.append(gauge.getKey()).append(" = ").append(gauge.getValue().getAsLong()).append('\n');
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			Histogram h = entry.getValue();
+			s.append(String.format("%s: count %d, mean %.1f, p50 %d, p99 %d, max %d%n", entry.getKey(), h.count(), h.mean(), h.percentile(0.5), h.percentile(0.99), h.max()));
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes the report to a file, replacing it only once it has been completely written
+	 */
+	public void dump(String fileName) throws IOException {
+		Path path = Paths.get(fileName).toAbsolutePath();
+		Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+		Files.write(temp, report().getBytes());
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Registers with the platform MBean server, so the numbers can be read with e.g. jconsole
+	 * @param name	object name, e.g. "kevinbacon:type=Metrics"
+	 */
+	public void register(String name) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+	}
+
+	// The DynamicMBean view: one read-only long (or double, for means) attribute per counter and gauge, and
+	// name.count/.mean/.p50/.p99/.max attributes per histogram
+
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		if (counters.containsKey(attribute)) return counters.get(attribute).sum();
+		if (gauges.containsKey(attribute)) return gauges.get(attribute).getAsLong();
+		int dot = attribute.lastIndexOf('.');
+		Histogram h = dot < 0 ? null : histograms.get(attribute.substring(0, dot));
+		if (h != null) {
+			switch (attribute.substring(dot + 1)) {
+				case "count": return h.count();
+				case "mean": return h.mean();
+				case "p50": return h.percentile(0.5);
+				case "p99": return h.percentile(0.99);
+				case "max": return h.max();
+			}
+		}
+		throw new AttributeNotFoundException(attribute);
+	}
+
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes) {
+			try {
+				list.add(new Attribute(attribute, getAttribute(attribute)));
+			}
+			catch (AttributeNotFoundException e) {
+				// left out, as the interface allows
+			}
+		}
+		return list;
+	}
+
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metrics are read-only");
+	}
+
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+		if (action.equals("report")) return report();
+		throw new ReflectionException(new NoSuchMethodException(action));
+	}
+
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for (String name : counters.keySet()) attributes.add(new MBeanAttributeInfo(name, "long", "counter", true, false, false));
+		for (String name : gauges.keySet()) attributes.add(new MBeanAttributeInfo(name, "long", "gauge", true, false, false));
+		for (String name : histograms.keySet()) {
+			for (String stat : new String[] { "count", "p50", "p99", "max" }) attributes.add(new MBeanAttributeInfo(name + "." + stat, "long", stat, true, false, false));
+			attributes.add(new MBeanAttributeInfo(name + ".mean", "double", "mean", true, false, false));
+		}
+		MBeanOperationInfo report = new MBeanOperationInfo("report", "all the numbers as text", new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO);
+		return new MBeanInfo(getClass().getName(), "Game counters and latency histograms", attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] { report }, null);
+	}
+}
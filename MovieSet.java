@@ -0,0 +1,125 @@
+import java.util.*;
+
+/**
+ * Compact, read-only edge label: a set of movies stored as ids into a shared movie table
+ * Most co-star pairs share just one movie, which is stored as a single int; pairs sharing several store a
+ * sorted int[]; either way the titles are only looked up in the table when the set is read
+ * Two MovieSets over the same table compare by their ids alone
+ *
+ * @param <E>	the type of movies
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public abstract class MovieSet<E> extends AbstractSet<E> {
+	protected final E[] table;		// movie id -> movie, shared by every label of a graph
+
+	protected MovieSet(E[] table) {
+		this.table = table;
+	}
+
+	/**
+	 * The label for one movie
+	 */
+	public static <E> MovieSet<E> of(E[] table, int id) {
+		return new Single<E>(table, id);
+	}
+
+	/**
+	 * The label for some movies
+	 * @param table		movie id -> movie
+	 * @param ids		distinct movie ids (not kept; copied, and sorted if need be)
+	 */
+	public static <E> MovieSet<E> of(E[] table, int[] ids) {
+		if (ids.length == 1) return new Single<E>(table, ids[0]);
+		int[] sorted = ids.clone();
+		Arrays.sort(sorted);
+		return new Multi<E>(table, sorted);
+	}
+
+	/** The i-th smallest movie id in the set */
+	public abstract int idAt(int i);
+
+	/** The movie ids, sorted (a new array) */
+	public int[] ids() {
+		int[] ids = new int[size()];
+		for (int i = 0; i < ids.length; i++) ids[i] = idAt(i);
+		return ids;
+	}
+
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			int i = 0;
+			public boolean hasNext() {
+				return i < size();
+			}
+			public E next() {
+				if (i >= size()) throw new NoSuchElementException();
+				return table[idAt(i++)];
+			}
+		};
+	}
+
+	public boolean contains(Object o) {
+		for (int i = 0; i < size(); i++) {
+			if (Objects.equals(table[idAt(i)], o)) return true;
+		}
+		return false;
+	}
+
+	public boolean equals(Object o) {
+		if (o instanceof MovieSet && ((MovieSet<?>) o).table == table) {	// same table, so just compare ids
+			MovieSet<?> other = (MovieSet<?>) o;
+			if (other.size() != size()) return false;
+			for (int i = 0; i < size(); i++) {
+				if (other.idAt(i) != idAt(i)) return false;
+			}
+			return true;
+		}
+		return super.equals(o);
+	}
+
+	public int hashCode() {
+		return super.hashCode();	// as for any Set: the sum of the members' hash codes
+	}
+
+	/**
+	 * A single movie
+	 */
+	private static class Single<E> extends MovieSet<E> {
+		private final int id;
+
+		Single(E[] table, int id) {
+			super(table);
+			this.id = id;
+		}
+
+		public int size() {
+			return 1;
+		}
+
+		public int idAt(int i) {
+			if (i != 0) throw new IndexOutOfBoundsException(i);
+			return id;
+		}
+	}
+
+	/**
+	 * Several movies, ids sorted
+	 */
+	private static class Multi<E> extends MovieSet<E> {
+		private final int[] ids;
+
+		Multi(E[] table, int[] ids) {
+			super(table);
+			this.ids = ids;
+		}
+
+		public int size() {
+			return ids.length;
+		}
+
+		public int idAt(int i) {
+			return ids[i];
+		}
+	}
+}
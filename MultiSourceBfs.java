@@ -0,0 +1,160 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Breadth first search from up to 64 sources at once over the int ids of a CsrGraph
+ * Each vertex has a long whose bit i says whether source i has reached it, and another for whether it is on
+ * source i's current frontier; one pass over the edges per level ORs every frontier word into its neighbors, so
+ * a level is scanned once for the whole batch rather than once per source
+ * Only the totals are kept for each source (reach, total distance, eccentricity), not the trees
+ * The kernel itself keeps no state, so one instance can serve several threads
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class MultiSourceBfs<V,E> {
+	public static final int BATCH = 64;		// sources per search: one bit each in a long
+
+	private final CsrGraph<V,E> g;
+
+	public MultiSourceBfs(CsrGraph<V,E> g) {
+		this.g = g;
+	}
+
+	/**
+	 * Totals for each of a list of sources, parallel to that list
+	 */
+	public static class Result {
+		private final int[] reached;			// vertices reached, including the source
+		private final long[] totalDistance;	// sum of the distances from the source
+		private final int[] eccentricity;		// largest distance from the source
+
+		Result(int count) {
+			reached = new int[count];
+			totalDistance = new long[count];
+			eccentricity = new int[count];
+		}
+
+		/** Number of sources */
+		public int size() {
+			return reached.length;
+		}
+
+		/** How many vertices the i-th source reached, itself included */
+		public int reached(int i) {
+			return reached[i];
+		}
+
+		/** The sum of the distances from the i-th source to the vertices it reached */
+		public long totalDistance(int i) {
+			return totalDistance[i];
+		}
+
+		/** The largest distance from the i-th source to a vertex it reached */
+		public int eccentricity(int i) {
+			return eccentricity[i];
+		}
+
+		/** The average distance from the i-th source to the other vertices it reached, as in ShortestPathTree */
+		public double averageSeparation(int i) {
+			return (double)totalDistance[i]/(reached[i]-1);
+		}
+	}
+
+	/**
+	 * Searches from one batch of sources, filling in their totals
+	 * @param sources	vertex ids
+	 * @param from		position in sources of the first of the batch
+	 * @param count		number in the batch, at most BATCH
+	 * @param result	totals to fill in, at the same positions as in sources
+	 * @param seen		scratch, one long per vertex: bit i set if the batch's i-th source has reached it
+	 * @param frontier	scratch, one long per vertex: bit i set if it is on the i-th source's current frontier
+	 * @param next		scratch, one long per vertex, all zero (and left that way)
+	 */
+	private void searchBatch(int[] sources, int from, int count, Result result, long[] seen, long[] frontier, long[] next) {
+		int n = g.numVertices();
+		int[] offsets = g.offsets(), targets = g.targets();
+		Arrays.fill(seen, 0);
+		Arrays.fill(frontier, 0);
+		for (int i = 0; i < count; i++) {
+			seen[sources[from + i]] |= 1L << i;
+			frontier[sources[from + i]] |= 1L << i;
+			result.reached[from + i] = 1;
+		}
+		boolean active = true;
+		for (int level = 1; active; level++) {
+			// Push every frontier word along its vertex's edges
+			for (int u = 0; u < n; u++) {
+				long f = frontier[u];
+				if (f == 0) continue;
+				for (int k = offsets[u]; k < offsets[u + 1]; k++) next[targets[k]] |= f;
+			}
+			// Whatever arrived that a source hadn't already seen is its next frontier
+			active = false;
+			for (int v = 0; v < n; v++) {
+				long fresh = next[v] & ~seen[v];
+				next[v] = 0;
+				frontier[v] = fresh;
+				if (fresh == 0) continue;
+				seen[v] |= fresh;
+				active = true;
+				for (; fresh != 0; fresh &= fresh - 1) {	// each source that reached v at this level
+					int i = from + Long.numberOfTrailingZeros(fresh);
+					result.reached[i]++;
+					result.totalDistance[i] += level;
+					result.eccentricity[i] = level;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Searches from every source, in batches of 64 split across a fixed pool of worker threads
+	 * @param sources	vertex ids
+	 * @param threads	number of worker threads
+	 * @return			totals for each source, parallel to sources
+	 */
+	public Result search(int[] sources, int threads) {
+		Result result = new Result(sources.length);
+		int batches = (sources.length + BATCH - 1) / BATCH;
+		AtomicInteger next = new AtomicInteger();
+		int workers = Math.max(1, Math.min(threads, batches));
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		try {
+			for (int w = 0; w < workers; w++) {
+				futures.add(pool.submit(() -> {
+					int n = g.numVertices();
+					long[] seen = new long[n], frontier = new long[n], pushed = new long[n];	// this worker's own scratch
+					int b;
+					while ((b = next.getAndIncrement()) < batches) {	// claim the next batch of sources
+						int from = b * BATCH;
+						searchBatch(sources, from, Math.min(BATCH, sources.length - from), result, seen, frontier, pushed);	// batches write disjoint totals
+					}
+				}));
+			}
+			for (Future<?> future : futures) future.get();
+			return result;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while searching from every source", e);
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("Searching from every source failed", e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Same, using one worker thread per available processor
+	 */
+	public Result search(int[] sources) {
+		return search(sources, Runtime.getRuntime().availableProcessors());
+	}
+}
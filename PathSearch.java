@@ -0,0 +1,19 @@
+/**
+ * A way of building shortest path trees over an IndexedGraph, so the game can use whichever suits the graph
+ * Implementations must allow searches from several threads at once, each into its own tree
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public interface PathSearch<V,E> {
+	/** The graph being searched */
+	public IndexedGraph<V,E> graph();
+
+	/** Searches from a vertex (assumed to be in the graph) into a new tree */
+	public ShortestPathTree<V,E> bfs(V source);
+
+	/** Searches from a vertex id, overwriting a tree built for this graph */
+	public void bfs(int source, ShortestPathTree<V,E> tree);
+}
@@ -0,0 +1,131 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for the pipe-delimited input files (id|name and id|id rows)
+ * Scans the raw bytes of each row, parsing the ids straight into ints and decoding a name into a String
+ * only once, then hands each row to a callback, so nothing is built per row beyond the name itself
+ * Names are decoded with the platform charset, like FileReader
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class PipeFileReader {
+	private static final int BUFFER = 1 << 16;
+
+	/**
+	 * Receives the rows of an id|name file
+	 */
+	public interface IdNameHandler {
+		void row(int id, String name);
+	}
+
+	/**
+	 * Receives the rows of an id|id file
+	 */
+	public interface IdPairHandler {
+		void row(int first, int second);
+	}
+
+	/**
+	 * Receives each row as the bounds of its fields within a byte array
+	 */
+	private interface RowHandler {
+		void row(byte[] bytes, int start, int bar, int end, long line) throws IOException;
+	}
+
+	/**
+	 * Streams the rows of an id|name file (e.g., actors.txt or movies.txt)
+	 * @param fileName	file to read
+	 * @param handler	called with each row, in file order
+	 */
+	public static void readIdNames(String fileName, IdNameHandler handler) throws IOException {
+		Charset charset = Charset.defaultCharset();
+		readRows(fileName, (byte[] bytes, int start, int bar, int end, long line) -> {
+			int id = parseInt(bytes, start, bar, fileName, line);
+			int nameEnd = bar + 1;
+			while (nameEnd < end && bytes[nameEnd] != '|') nameEnd++;	// the name is the second field only
+			handler.row(id, new String(bytes, bar + 1, nameEnd - bar - 1, charset));
+		});
+	}
+
+	/**
+	 * Streams the rows of an id|id file (e.g., movie-actors.txt)
+	 * @param fileName	file to read
+	 * @param handler	called with each row, in file order
+	 */
+	public static void readIdPairs(String fileName, IdPairHandler handler) throws IOException {
+		readRows(fileName, (byte[] bytes, int start, int bar, int end, long line) -> {
+			int secondEnd = bar + 1;
+			while (secondEnd < end && bytes[secondEnd] != '|') secondEnd++;
+			handler.row(parseInt(bytes, start, bar, fileName, line), parseInt(bytes, bar + 1, secondEnd, fileName, line));
+		});
+	}
+
+	/**
+	 * Splits the file into rows (ignoring blank ones and a trailing \r) and finds each row's first '|'
+	 */
+	private static void readRows(String fileName, RowHandler handler) throws IOException {
+		try (FileChannel in = new FileInputStream(fileName).getChannel()) {
+			ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+			long line = 0;
+			boolean eof = false;
+			while (!eof) {
+				eof = in.read(buf) < 0;
+				byte[] bytes = buf.array();
+				int limit = buf.position(), start = 0;
+				for (int i = 0; i < limit; i++) {
+					if (bytes[i] == '\n') {
+						line++;
+						row(bytes, start, i, line, fileName, handler);
+						start = i + 1;
+					}
+				}
+				if (eof && start < limit) {	// last row, without a newline
+					line++;
+					row(bytes, start, limit, line, fileName, handler);
+					start = limit;
+				}
+				// Keep the partial row for the next read, growing the buffer if the row fills it
+				if (start == 0 && limit == bytes.length) {
+					buf = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length * 2));
+					buf.position(limit);
+				}
+				else {
+					System.arraycopy(bytes, start, bytes, 0, limit - start);
+					buf.position(limit - start);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Hands one row, bytes[start..end), to the handler
+	 */
+	private static void row(byte[] bytes, int start, int end, long line, String fileName, RowHandler handler) throws IOException {
+		if (end > start && bytes[end - 1] == '\r') end--;
+		if (end == start) return;
+		int bar = start;
+		while (bar < end && bytes[bar] != '|') bar++;
+		if (bar == end) throw new IOException("No '|' on line " + line + " of " + fileName);
+		handler.row(bytes, start, bar, end, line);
+	}
+
+	/**
+	 * Parses the decimal digits in bytes[start..end) as an int
+	 */
+	private static int parseInt(byte[] bytes, int start, int end, String fileName, long line) throws IOException {
+		if (start == end) throw new IOException("Missing id on line " + line + " of " + fileName);
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = bytes[i] - '0';
+			if (digit < 0 || digit > 9) throw new IOException("Bad id on line " + line + " of " + fileName);
+			value = value * 10 + digit;
+			if (value > Integer.MAX_VALUE) throw new IOException("Id too large on line " + line + " of " + fileName);
+		}
+		return (int) value;
+	}
+}
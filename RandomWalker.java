@@ -0,0 +1,322 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Random walks over the int ids of a CsrGraph, taking each step in constant time
+ * A step picks an edge index straight out of the vertex's slice of the CSR targets, rather than iterating to the
+ * chosen neighbor; if weighted, each vertex's slice also gets an alias table (Vose's method) so that an edge is
+ * picked in proportion to the size of its label (for co-stars, the number of movies they shared), still with
+ * just one random index and one random coin per step
+ * The random numbers come from the caller's ThreadLocalRandom or SplittableRandom, never a shared generator,
+ * and the walker itself keeps no state, so one walker can serve several threads
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class RandomWalker<V,E> {
+	private static final int CHUNK = 64;		// start vertices a worker claims at a time
+
+	private final CsrGraph<V,E> g;
+	private final double[] keep;		// edge k -> probability of keeping k when it is the index picked (weighted only)
+	private final int[] alias;			// edge k -> edge taken instead when k isn't kept (weighted only)
+
+	/**
+	 * Walker that picks uniformly among the neighbors
+	 */
+	public RandomWalker(CsrGraph<V,E> g) {
+		this(g, false);
+	}
+
+	/**
+	 * @param g			graph to walk on
+	 * @param weighted	whether to pick neighbors in proportion to the size of the edge label (a Collection,
+	 * 					or else weight 1), instead of uniformly
+	 */
+	public RandomWalker(CsrGraph<V,E> g, boolean weighted) {
+		this.g = g;
+		if (!weighted) {
+			keep = null;
+			alias = null;
+			return;
+		}
+		int[] offsets = g.offsets();
+		keep = new double[g.numEdges()];
+		alias = new int[g.numEdges()];
+		int[] small = new int[g.numEdges()], large = new int[g.numEdges()];	// stacks of edge indices, reused per vertex
+		for (int u = 0; u < g.numVertices(); u++) {
+			int from = offsets[u], degree = offsets[u + 1] - from;
+			if (degree == 0) continue;
+			// Scale the weights so they average 1, then pair each under-full edge with an over-full one
+			double total = 0;
+			for (int k = from; k < from + degree; k++) total += weight(k);
+			int s = 0, l = 0;
+			for (int k = from; k < from + degree; k++) {
+				keep[k] = weight(k) * degree / total;
+				alias[k] = k;
+				if (keep[k] < 1) small[s++] = k;
+				else large[l++] = k;
+			}
+			while (s > 0 && l > 0) {
+				int less = small[--s], more = large[l - 1];
+				alias[less] = more;
+				keep[more] -= 1 - keep[less];
+				if (keep[more] < 1) {
+					l--;
+					small[s++] = more;
+				}
+			}
+			while (l > 0) keep[large[--l]] = 1;		// leftovers are full, up to rounding
+			while (s > 0) keep[small[--s]] = 1;
+		}
+	}
+
+	/**
+	 * The weight of an edge: the size of its label, if that is a collection
+	 */
+	private double weight(int edge) {
+		E label = g.labelAt(edge);
+		return label instanceof Collection ? Math.max(1, ((Collection<?>) label).size()) : 1;
+	}
+
+	/** The graph walked on */
+	public CsrGraph<V,E> graph() {
+		return g;
+	}
+
+	/**
+	 * Takes one random step
+	 * @param u		vertex id to step from
+	 * @param rnd	source of randomness
+	 * @return		id of the neighbor stepped to, or -1 if u has no neighbors
+	 */
+	public int step(int u, SplittableRandom rnd) {
+		int from = g.offsets()[u], degree = g.offsets()[u + 1] - from;
+		if (degree == 0) return -1;
+		int k = from + rnd.nextInt(degree);
+		if (keep != null && rnd.nextDouble() >= keep[k]) k = alias[k];
+		return g.targets()[k];
+	}
+
+	/**
+	 * Same, drawing on the calling thread's ThreadLocalRandom
+	 */
+	public int step(int u) {
+		int from = g.offsets()[u], degree = g.offsets()[u + 1] - from;
+		if (degree == 0) return -1;
+		ThreadLocalRandom rnd = ThreadLocalRandom.current();
+		int k = from + rnd.nextInt(degree);
+		if (keep != null && rnd.nextDouble() >= keep[k]) k = alias[k];
+		return g.targets()[k];
+	}
+
+	/**
+	 * Takes a random walk, stopping early at a vertex with no neighbors
+	 * @param start	initial vertex
+	 * @param steps	max number of steps
+	 * @return		the vertices stepped to, in order (not including start, as with GraphLib.randomWalk);
+	 * 				null if start isn't in graph or steps < 0
+	 */
+	public List<V> walk(V start, int steps) {
+		int u = g.indexOf(start);
+		if (u < 0 || steps < 0) return null;
+		List<V> path = new ArrayList<V>();
+		for (int step = 0; step < steps && (u = step(u)) >= 0; step++) path.add(g.vertexAt(u));
+		return path;
+	}
+
+	/**
+	 * Totals over a batch of walks
+	 */
+	public static class Stats {
+		private long walks = 0;				// walks taken
+		private long steps = 0;				// steps taken, over all walks
+		private long stuck = 0;				// walks that stopped early, at a vertex with no neighbors
+		private long returns = 0;			// steps that landed back on the walk's start
+		private final long[] visits;		// vertex id -> steps that landed on it
+		private long[] ended = new long[0];	// d -> measured walks that ended d steps (by shortest path) from their start
+
+		Stats(int n) {
+			visits = new long[n];
+		}
+
+		void addAll(Stats other) {
+			walks += other.walks;
+			steps += other.steps;
+			stuck += other.stuck;
+			returns += other.returns;
+			for (int i = 0; i < visits.length; i++) visits[i] += other.visits[i];
+			for (int d = 0; d < other.ended.length; d++) {
+				if (other.ended[d] > 0) end(d, other.ended[d]);
+			}
+		}
+
+		/**
+		 * Counts walks that ended d steps from their start
+		 */
+		void end(int d, long walks) {
+			if (d >= ended.length) ended = Arrays.copyOf(ended, Math.max(d + 1, 2 * ended.length));
+			ended[d] += walks;
+		}
+
+		/** Number of walks taken */
+		public long walks() {
+			return walks;
+		}
+
+		/** Number of steps taken, over all walks */
+		public long steps() {
+			return steps;
+		}
+
+		/** Number of walks that stopped early at a vertex with no neighbors */
+		public long stuck() {
+			return stuck;
+		}
+
+		/** Number of steps that landed back on the walk's own start */
+		public long returns() {
+			return returns;
+		}
+
+		/** Number of steps that landed on the vertex with this id */
+		public long visits(int id) {
+			return visits[id];
+		}
+
+		/** Number of walks whose separation from their start was measured (all or none of them) */
+		public long measured() {
+			long total = 0;
+			for (long count : ended) total += count;
+			return total;
+		}
+
+		/** Number of measured walks that ended exactly d steps, by shortest path, from their start */
+		public long numEndedAt(int d) {
+			return d < 0 || d >= ended.length ? 0 : ended[d];
+		}
+
+		/** Average separation (shortest path distance) between a measured walk's start and its end */
+		public double averageSeparation() {
+			long total = 0;
+			for (int d = 0; d < ended.length; d++) total += d * ended[d];
+			return (double)total/measured();
+		}
+
+		/** Largest separation between a measured walk's start and its end (0 if none was measured) */
+		public int maxSeparation() {
+			int max = ended.length - 1;
+			while (max > 0 && ended[max] == 0) max--;
+			return Math.max(max, 0);
+		}
+
+		/** Average number of steps per walk */
+		public double averageLength() {
+			return (double)steps/walks;
+		}
+
+		/**
+		 * The ids of the k most visited vertices, most visited first (ties by smaller id)
+		 */
+		public int[] mostVisited(int k) {
+			Centrality.BoundedHeap heap = new Centrality.BoundedHeap(Math.min(k, visits.length), true);
+			for (int id = 0; id < visits.length; id++) {
+				if (visits[id] > 0) heap.offer(id, visits[id]);
+			}
+			return heap.sorted();
+		}
+
+		/**
+		 * Returns a string representation of the totals.
+		 */
+		public String toString() {
+			String s = walks + " walks, " + steps + " steps (average " + averageLength() + "), " + stuck + " stuck, " + returns + " returns to start";
+			if (measured() > 0) s += ", average separation " + averageSeparation() + " (at most " + maxSeparation() + ")";
+			return s;
+		}
+	}
+
+	/**
+	 * Takes many walks in parallel and totals them up
+	 * The starts are split into chunks claimed by a fixed pool of worker threads; each chunk has its own
+	 * generator split off from the seed, so the totals depend only on the seed, not on the threads
+	 * Measuring the separations costs one BFS per start, shared by all the walks from it, which for short walks
+	 * can cost far more than the walks themselves, so it is asked for separately
+	 * @param starts		vertex ids to start from
+	 * @param walksPerStart	walks to take from each start
+	 * @param steps			max steps per walk
+	 * @param seed			seed for the random numbers
+	 * @param threads		number of worker threads
+	 * @param separations	whether to measure how far (by shortest path) each walk ends from its start
+	 */
+	public Stats walks(int[] starts, int walksPerStart, int steps, long seed, int threads, boolean separations) {
+		int chunks = (starts.length + CHUNK - 1) / CHUNK;
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] chunkRandom = new SplittableRandom[chunks];
+		for (int c = 0; c < chunks; c++) chunkRandom[c] = root.split();
+
+		AtomicInteger next = new AtomicInteger();
+		int workers = Math.max(1, Math.min(threads, chunks));
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		List<Future<Stats>> futures = new ArrayList<Future<Stats>>();
+		try {
+			for (int w = 0; w < workers; w++) {
+				futures.add(pool.submit(() -> {
+					Stats mine = new Stats(g.numVertices());
+					BfsEngine<V,E> bfs = new BfsEngine<V,E>(g);
+					ShortestPathTree<V,E> tree = separations ? new ShortestPathTree<V,E>(g) : null;	// this worker's search buffers
+					int c;
+					while ((c = next.getAndIncrement()) < chunks) {	// claim the next chunk of starts
+						SplittableRandom rnd = chunkRandom[c];
+						for (int i = c * CHUNK; i < Math.min((c + 1) * CHUNK, starts.length); i++) {
+							if (tree != null) bfs.bfs(starts[i], tree);
+							for (int walk = 0; walk < walksPerStart; walk++) {
+								int u = starts[i], step = 0;
+								for (int v; step < steps; step++, u = v) {
+									v = step(u, rnd);
+									if (v < 0) break;
+									mine.visits[v]++;
+									if (v == starts[i]) mine.returns++;
+								}
+								mine.walks++;
+								mine.steps += step;
+								if (step < steps) mine.stuck++;
+								if (tree != null) mine.end(tree.distanceOf(u), 1);
+							}
+						}
+					}
+					return mine;
+				}));
+			}
+			Stats total = new Stats(g.numVertices());
+			for (Future<Stats> future : futures) total.addAll(future.get());
+			return total;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while walking", e);
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("Walking failed", e.getCause());
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Same, without measuring the separations
+	 */
+	public Stats walks(int[] starts, int walksPerStart, int steps, long seed, int threads) {
+		return walks(starts, walksPerStart, steps, seed, threads, false);
+	}
+
+	/**
+	 * Same, using one worker thread per available processor
+	 */
+	public Stats walks(int[] starts, int walksPerStart, int steps, long seed) {
+		return walks(starts, walksPerStart, steps, seed, Runtime.getRuntime().availableProcessors());
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * Estimated average separations of the vertices of one connected component, from BFS out of a random sample
+ * of pivots in it rather than from every vertex
+ * Since the graph is undirected, the distance from a pivot to v is also the distance from v to the pivot, so the
+ * pivots' distances to v are a sample of v's distances to the whole component; scaling their mean by n/(n-1)
+ * (v's distance to itself being 0) estimates v's average separation
+ * Each estimate comes with a 95% confidence interval from the sample variance, narrowed by the finite population
+ * correction, so that once every vertex is a pivot the estimates are exact and the intervals empty
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class SeparationEstimate {
+	private static final double Z = 1.96;		// standard normal quantile for 95% confidence
+
+	private final int population;		// vertices in the component
+	private final long[] sum;			// vertex id -> sum of the distances from the pivots so far
+	private final long[] sumSquares;	// vertex id -> sum of the squares of those distances
+	private int pivots = 0;			// pivots searched from so far
+	private int outOfTimeFor = 0;		// the num being ranked when the time budget ran out, if it did
+
+	/**
+	 * An estimate with no pivots yet
+	 * @param n				number of vertices in the graph
+	 * @param population	number of vertices in the component the pivots are drawn from
+	 */
+	SeparationEstimate(int n, int population) {
+		this.population = population;
+		sum = new long[n];
+		sumSquares = new long[n];
+	}
+
+	/**
+	 * Adds the distances from a pivot's search
+	 */
+	void add(ShortestPathTree<?,?> tree) {
+		int[] order = tree.order();
+		for (int i = 0; i < tree.numVertices(); i++) {
+			int d = tree.distanceOf(order[i]);
+			sum[order[i]] += d;
+			sumSquares[order[i]] += (long) d * d;
+		}
+		pivots++;
+	}
+
+	/**
+	 * Adds in the pivots of another estimate of the same component
+	 */
+	void addAll(SeparationEstimate other) {
+		for (int i = 0; i < sum.length; i++) {
+			sum[i] += other.sum[i];
+			sumSquares[i] += other.sumSquares[i];
+		}
+		pivots += other.pivots;
+	}
+
+	/** Number of pivots searched from */
+	public int pivots() {
+		return pivots;
+	}
+
+	/** Number of vertices in the component */
+	public int population() {
+		return population;
+	}
+
+	/**
+	 * Records that sampling stopped because the time budget ran out, before the vertices to rank for num were
+	 * all within epsilon
+	 * @return		this estimate
+	 */
+	SeparationEstimate outOfTime(int num) {
+		outOfTimeFor = num;
+		return this;
+	}
+
+	/**
+	 * Whether the time budget ran out while sampling to rank at least as many vertices as num, in the same
+	 * direction; the pivots come in the same order from the same seed, so sampling again with the same budget
+	 * would get about as far, and no closer for num
+	 */
+	public boolean outOfTimeFor(int num) {
+		return num != 0 && Integer.signum(num) == Integer.signum(outOfTimeFor) && Math.abs(num) <= Math.abs(outOfTimeFor);
+	}
+
+	/** Whether every vertex of the component has been a pivot, making the estimates exact */
+	public boolean exact() {
+		return pivots >= population;
+	}
+
+	/**
+	 * Estimated average separation of the vertex with this id
+	 */
+	public double averageSeparation(int id) {
+		return (double)sum[id]/pivots * population/(population - 1);
+	}
+
+	/**
+	 * Half the width of the 95% confidence interval around averageSeparation(id)
+	 */
+	public double halfWidth(int id) {
+		if (exact()) return 0;
+		if (pivots < 2) return Double.POSITIVE_INFINITY;
+		double mean = (double)sum[id]/pivots;
+		double variance = Math.max(0, ((double)sumSquares[id]/pivots - mean * mean) * pivots/(pivots - 1));
+		double correction = (double)(population - pivots)/(population - 1);		// sampling without replacement
+		return Z * Math.sqrt(variance/pivots * correction) * population/(population - 1);
+	}
+
+	/**
+	 * The widest confidence interval (half width) among some vertices
+	 */
+	public double maxHalfWidth(int[] ids) {
+		double max = 0;
+		for (int id : ids) max = Math.max(max, halfWidth(id));
+		return max;
+	}
+
+	/**
+	 * The top (positive num: largest estimated average separation first) or bottom (negative num: smallest first)
+	 * |num| of the sources, which must be in the component
+	 * @return		vertex ids, best first
+	 */
+	public int[] rank(int[] sources, int num) {
+		Centrality.BoundedHeap heap = new Centrality.BoundedHeap(Math.min(Math.abs(num), sources.length), num > 0);
+		if (population > 1) {
+			for (int id : sources) heap.offer(id, averageSeparation(id));
+		}
+		return heap.sorted();
+	}
+}
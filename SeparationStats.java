@@ -0,0 +1,62 @@
+import java.util.*;
+
+/**
+ * Summary of the distances in a shortest path tree: how many vertices were reached, the sum of their distances
+ * from the center, the largest distance (the center's eccentricity), and how many vertices are at each distance
+ * Filled in by the search as it goes, so reading it costs no second traversal
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class SeparationStats {
+	private final int reached;				// vertices reached, including the center
+	private final long totalDistance;		// sum of their distances from the center
+	private final int[] histogram;			// distance -> number of vertices at that distance
+
+	/**
+	 * @param reached		vertices reached, including the center
+	 * @param totalDistance	sum of the distances from the center
+	 * @param histogram		vertices at each distance 0 .. eccentricity (not copied)
+	 */
+	public SeparationStats(int reached, long totalDistance, int[] histogram) {
+		this.reached = reached;
+		this.totalDistance = totalDistance;
+		this.histogram = histogram;
+	}
+
+	/** How many vertices were reached, including the center */
+	public int reached() {
+		return reached;
+	}
+
+	/** The sum of the distances from the center to all reached vertices */
+	public long totalDistance() {
+		return totalDistance;
+	}
+
+	/** The largest distance from the center to a reached vertex */
+	public int eccentricity() {
+		return histogram.length - 1;
+	}
+
+	/** How many vertices are exactly d steps from the center */
+	public int numVerticesAt(int d) {
+		return d < 0 || d >= histogram.length ? 0 : histogram[d];
+	}
+
+	/** The number of vertices at each distance from 0 (just the center) to the eccentricity (a copy) */
+	public int[] histogram() {
+		return histogram.clone();
+	}
+
+	/** The average distance from the center over the other reached vertices */
+	public double averageSeparation() {
+		return (double)totalDistance/(reached-1);
+	}
+
+	/**
+	 * Returns a string representation of the summary, e.g. "reached 4, average 1.3333333333333333, max 2, per distance [1, 2, 1]"
+	 */
+	public String toString() {
+		return "reached " + reached + ", average " + averageSeparation() + ", max " + eccentricity() + ", per distance " + Arrays.toString(histogram);
+	}
+}
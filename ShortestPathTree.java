@@ -0,0 +1,361 @@
+import java.util.*;
+
+/**
+ * Compact shortest path tree over an IndexedGraph, as produced by BfsEngine
+ * Each reached vertex records its parent (the next vertex on its path back to the center) and its distance
+ * from the center; vertices not reached have distance -1
+ * The vertices are also kept in the order BFS reached them, which doubles as the search queue, along with where
+ * each distance's run of that order starts; the totals behind SeparationStats are kept up as vertices are reached
+ * A tree can be refilled by another search, reusing its arrays
+ * If the graph is mutable and gains vertices after the tree was made, the tree treats them as not reached
+ * A tree can also be repaired in place after its graph changes (see TreeRepair), moving vertices one at a time;
+ * the totals and the count at each distance are kept up as they move, but the visit order is only put back
+ * together (by a counting sort on distance) when next asked for
+ * A copy of a tree can be made over another version of its graph with the same vertex ids, to be repaired apart
+ * from the original, and then moved onto the version it was repaired to
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class ShortestPathTree<V,E> {
+	private IndexedGraph<V,E> graph;
+	private int[] parent;				// id -> parent's id (-1 for the center and for unreached vertices)
+	private int[] distance;			// id -> distance from the center (-1 if not reached)
+	private int[] order;				// ids in the order they were reached; order[0] is the center
+	private int[] levelStarts;			// d -> position in order of the first vertex at distance d, for d up to depth
+	private int center = -1;			// id of the center
+	private int size = 0;				// how many vertices have been reached
+	private int depth = 0;				// distance of the farthest vertex reached
+	private long totalDistance = 0;	// sum of the distances of the reached vertices
+	private volatile boolean ordered = true;	// whether order and levelStarts are up to date (not after a repair)
+	private int[] counts;				// d -> number of vertices at distance d, kept instead while not ordered
+
+	/**
+	 * Creates an empty tree (nothing reached) with room for every vertex of the graph
+	 */
+	public ShortestPathTree(IndexedGraph<V,E> graph) {
+		this.graph = graph;
+		int n = graph.numVertices();
+		parent = new int[n];
+		distance = new int[n];
+		order = new int[n];
+		levelStarts = new int[n + 1];
+		Arrays.fill(parent, -1);
+		Arrays.fill(distance, -1);
+	}
+
+	/**
+	 * A copy of a tree, over a graph numbering the vertices the same way, with room for all of that graph's vertices
+	 */
+	private ShortestPathTree(ShortestPathTree<V,E> tree, IndexedGraph<V,E> graph) {
+		this.graph = graph;
+		parent = tree.parent.clone();
+		distance = tree.distance.clone();
+		order = tree.order.clone();
+		levelStarts = tree.levelStarts.clone();
+		center = tree.center;
+		size = tree.size;
+		depth = tree.depth;
+		totalDistance = tree.totalDistance;
+		ordered = tree.ordered;
+		if (tree.counts != null) counts = tree.counts.clone();
+		grow();
+	}
+
+	/**
+	 * A copy of the tree over another graph with the same vertex ids (such as a snapshot of its graph, or the graph
+	 * a snapshot was taken of); the tree itself is left as it is, for whoever is still reading it
+	 */
+	synchronized ShortestPathTree<V,E> copyFor(IndexedGraph<V,E> graph) {
+		return new ShortestPathTree<V,E>(this, graph);
+	}
+
+	/**
+	 * Moves the tree onto another graph with the same vertex ids (such as a snapshot of the graph it was repaired
+	 * over), making room for all of that graph's vertices; only for a tree nobody else is reading yet
+	 */
+	void rebind(IndexedGraph<V,E> graph) {
+		this.graph = graph;
+		grow();
+	}
+
+	/**
+	 * Empties the tree and starts it over from the center, clearing only the entries the last search set
+	 */
+	void reset(int center) {
+		if (!ordered) {	// the order doesn't say which entries are set, so clear them all
+			Arrays.fill(parent, -1);
+			Arrays.fill(distance, -1);
+			ordered = true;
+		}
+		else {
+			for (int i = 0; i < size; i++) {
+				parent[order[i]] = -1;
+				distance[order[i]] = -1;
+			}
+		}
+		this.center = center;
+		size = 0;
+		depth = 0;
+		totalDistance = 0;
+		distance[center] = 0;
+		order[size++] = center;
+	}
+
+	/**
+	 * Records that v was reached from u, one step further from the center; v goes on the end of the queue
+	 */
+	void discover(int v, int u) {
+		parent[v] = u;
+		distance[v] = distance[u] + 1;
+		if (distance[v] > depth) levelStarts[++depth] = size;	// first vertex of a new level
+		totalDistance += distance[v];
+		order[size++] = v;
+	}
+
+	/**
+	 * The ids in the order they were reached (shared, not a copy); only the first numVertices() are meaningful, and
+	 * only if nothing has moved since the last search
+	 */
+	int[] order() {
+		return order;
+	}
+
+	/**
+	 * Makes room for vertices added to the graph since the tree was made (or last grown), as not reached
+	 */
+	void grow() {
+		int n = graph.numVertices(), old = distance.length;
+		if (n <= old) return;
+		parent = Arrays.copyOf(parent, n);
+		distance = Arrays.copyOf(distance, n);
+		order = Arrays.copyOf(order, n);
+		levelStarts = Arrays.copyOf(levelStarts, n + 1);
+		Arrays.fill(parent, old, n, -1);
+		Arrays.fill(distance, old, n, -1);
+	}
+
+	/**
+	 * Moves a vertex to a new parent and distance (or, with distance -1, out of the tree), keeping the totals and
+	 * the count at each distance; the visit order is left to be put back together when next needed
+	 * The tree must have room for the vertex (see grow)
+	 */
+	void move(int id, int p, int d) {
+		if (ordered) {	// switch to keeping counts
+			if (counts == null || counts.length < levelStarts.length) counts = new int[levelStarts.length];
+			for (int i = 0; i <= depth; i++) counts[i] = numVerticesAt(i);
+			ordered = false;
+		}
+		int old = distance[id];
+		if (old >= 0) {
+			counts[old]--;
+			totalDistance -= old;
+			size--;
+		}
+		parent[id] = p;
+		distance[id] = d;
+		if (d >= 0) {
+			if (d >= counts.length) counts = Arrays.copyOf(counts, Math.max(d + 1, 2 * counts.length));
+			if (d > depth) Arrays.fill(counts, depth + 1, d + 1, 0);
+			counts[d]++;
+			totalDistance += d;
+			size++;
+			depth = Math.max(depth, d);
+		}
+		while (depth > 0 && counts[depth] == 0) depth--;
+	}
+
+	/**
+	 * Puts the visit order (and where each level starts) back together after vertices have moved, by a counting
+	 * sort of the reached ids on distance; several threads may ask at once, so only one of them sorts
+	 */
+	private void sort() {
+		if (ordered) return;
+		synchronized (this) {
+			if (ordered) return;
+			int[] next = new int[depth + 2];
+			for (int d = 0; d <= depth; d++) next[d + 1] = next[d] + counts[d];
+			System.arraycopy(next, 0, levelStarts, 0, depth + 1);
+			for (int id = 0; id < distance.length; id++) {
+				if (distance[id] >= 0) order[next[distance[id]]++] = id;
+			}
+			ordered = true;
+		}
+	}
+
+	/** The graph this tree spans part of */
+	public IndexedGraph<V,E> graph() {
+		return graph;
+	}
+
+	/** The center (root) of the tree */
+	public V center() {
+		return graph.vertexAt(center);
+	}
+
+	/** Id of the center */
+	public int centerId() {
+		return center;
+	}
+
+	/** How many vertices were reached, including the center */
+	public int numVertices() {
+		return size;
+	}
+
+	/** Whether or not v was reached */
+	public boolean hasVertex(V v) {
+		return distanceOf(graph.indexOf(v)) >= 0;
+	}
+
+	/** The reached vertices, in nondecreasing order of distance */
+	public Iterable<V> vertices() {
+		sort();
+		List<V> vertices = new ArrayList<V>(size);
+		for (int i = 0; i < size; i++) vertices.add(graph.vertexAt(order[i]));
+		return vertices;
+	}
+
+	/** The ids of the reached vertices, in nondecreasing order of distance */
+	public int[] vertexIds() {
+		sort();
+		return Arrays.copyOf(order, size);
+	}
+
+	/**
+	 * The vertices whose distance from the center is between low and high (inclusive), in nondecreasing order of
+	 * distance
+	 * BFS reaches the vertices level by level, so these are one contiguous run of the visit order; the list is a
+	 * view of that run (nothing is copied), only valid until the tree is refilled
+	 */
+	public List<V> verticesBetween(int low, int high) {
+		sort();
+		int from = levelStart(Math.max(low, 0));
+		int to = high < low ? from : high >= depth ? size : levelStart(high + 1);	// high + 1 could overflow
+		return new AbstractList<V>() {
+			public V get(int i) {
+				if (i < 0 || i >= to - from) throw new IndexOutOfBoundsException(i);
+				return graph.vertexAt(order[from + i]);
+			}
+			public int size() {
+				return to - from;
+			}
+		};
+	}
+
+	/**
+	 * How many vertices are exactly d steps from the center
+	 */
+	public int numVerticesAt(int d) {
+		if (d < 0 || d > depth) return 0;
+		return ordered ? levelStart(d + 1) - levelStart(d) : counts[d];
+	}
+
+	/**
+	 * The position in the visit order of the first vertex at least d steps from the center (numVertices() if none)
+	 */
+	private int levelStart(int d) {
+		return d > depth ? size : levelStarts[d];
+	}
+
+	/**
+	 * Summary of the distances from the center, from the totals kept during the search
+	 */
+	public SeparationStats stats() {
+		int[] histogram = new int[depth + 1];
+		for (int d = 0; d <= depth; d++) histogram[d] = numVerticesAt(d);
+		return new SeparationStats(size, totalDistance, histogram);
+	}
+
+	/** Distance from the center to the vertex with this id, or -1 if not reached */
+	public int distanceOf(int id) {
+		return id >= 0 && id < distance.length ? distance[id] : -1;	// vertices added since are not reached
+	}
+
+	/** Id of the parent of the vertex with this id, or -1 for the center or if not reached */
+	public int parentOf(int id) {
+		return id >= 0 && id < parent.length ? parent[id] : -1;
+	}
+
+	/** Distance from the center to v, or -1 if not reached */
+	public int distance(V v) {
+		return distanceOf(graph.indexOf(v));
+	}
+
+	/** The parent of v, or null for the center or if not reached */
+	public V parent(V v) {
+		int p = parentOf(graph.indexOf(v));
+		return p < 0 ? null : graph.vertexAt(p);
+	}
+
+	/** The label on the edge from v to its parent, or null for the center or if not reached */
+	public E label(V v) {
+		V p = parent(v);
+		return p == null ? null : graph.getLabel(v, p);
+	}
+
+	/**
+	 * The path from v back to the center, starting with v and ending with the center; empty if v wasn't reached
+	 */
+	public List<V> getPath(V v) {
+		List<V> path = new ArrayList<V>();
+		int id = graph.indexOf(v);
+		if (distanceOf(id) < 0) return path;
+		for (; id >= 0; id = parent[id]) path.add(graph.vertexAt(id));
+		return path;
+	}
+
+	/**
+	 * The vertices of the graph that were not reached
+	 */
+	public Set<V> missingVertices() {
+		Set<V> missing = new HashSet<V>();
+		for (int id = 0; id < graph.numVertices(); id++) {
+			if (distanceOf(id) < 0) missing.add(graph.vertexAt(id));
+		}
+		return missing;
+	}
+
+	/**
+	 * The sum of the distances from the center to all reached vertices
+	 */
+	public long totalDistance() {
+		return totalDistance;
+	}
+
+	/**
+	 * The largest distance from the center to a reached vertex
+	 */
+	public int eccentricity() {
+		return depth;
+	}
+
+	/**
+	 * The average distance from the center over the other reached vertices
+	 */
+	public double averageSeparation() {
+		return (double)totalDistance()/(size-1);
+	}
+
+	/**
+	 * Rough number of bytes the tree's arrays take up, for bounding caches of trees
+	 */
+	public long estimatedBytes() {
+		return 4L * (parent.length + distance.length + order.length + levelStarts.length) + 4 * 16;	// plus array headers
+	}
+
+	/**
+	 * Returns a string representation of the reached vertices and their parents.
+	 */
+	public String toString() {
+		sort();
+		StringBuilder s = new StringBuilder("Center: " + center() + "\nParents: {");
+		for (int i = 1; i < size; i++) {
+			if (i > 1) s.append(", ");
+			s.append(graph.vertexAt(order[i])).append('=').append(graph.vertexAt(parent[order[i]]));
+		}
+		return s.append('}').toString();
+	}
+}
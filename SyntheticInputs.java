@@ -0,0 +1,74 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Writes made-up input files in the same format as those in inputs/ (movies, actors, movie-actors; one
+ * "id|name" or "movie id|actor id" per line), at any multiple of the bundled data set's size, for benchmarks
+ * The shape follows the bundled files: about 0.77 movies and 2.3 credits per actor, casts averaging 3 (at least
+ * 1, geometric beyond that), and about a fifth of the actors in no movie at all; each credit goes to an actor
+ * picked in proportion to the credits they already have about half of the time, so a few hubs emerge as in
+ * the real co-star graph
+ * Actor 1 is always "Kevin Bacon", so the game has its usual center
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class SyntheticInputs {
+	private static final int ACTORS = 9235, MOVIES = 7066;	// in the bundled data set
+	private static final double MEAN_CAST = 3.03;			// credits per movie in the bundled data set
+	private static final double CREDITED = 0.8;			// share of the actors who get any movie
+	private static final double PREFERENTIAL = 0.5;		// share of credits given in proportion to credits so far
+
+	/**
+	 * Writes the three files
+	 * @param dir		directory to write movies.txt, actors.txt and movie-actors.txt into
+	 * @param scale		size relative to the bundled data set
+	 * @param seed		seed for the random numbers, so the same arguments give the same files
+	 */
+	public static void generate(String dir, double scale, long seed) throws IOException {
+		SplittableRandom rnd = new SplittableRandom(seed);
+		int actors = (int) Math.max(2, ACTORS * scale), movies = (int) Math.max(1, MOVIES * scale);
+		int credited = (int) Math.max(2, actors * CREDITED);	// only actors 1 .. credited appear in movies
+		new File(dir).mkdirs();
+		try (PrintWriter out = writer(dir, "actors.txt")) {
+			out.println("1|Kevin Bacon");
+			for (int a = 2; a <= actors; a++) out.println(a + "|Actor " + a);
+		}
+		try (PrintWriter out = writer(dir, "movies.txt")) {
+			for (int m = 1; m <= movies; m++) out.println(m + "|Movie " + m + " (" + (1900 + rnd.nextInt(120)) + ")");
+		}
+		int[] credits = new int[16];	// actor of every credit so far, to pick from in proportion to credits
+		int numCredits = 0;
+		double stop = 1 / MEAN_CAST;	// chance that a cast ends after each member
+		try (PrintWriter out = writer(dir, "movie-actors.txt")) {
+			for (int m = 1; m <= movies; m++) {
+				Set<Integer> cast = new HashSet<Integer>();
+				do {
+					int a = numCredits > 0 && rnd.nextDouble() < PREFERENTIAL ? credits[rnd.nextInt(numCredits)] : 1 + rnd.nextInt(credited);
+					if (!cast.add(a)) continue;
+					out.println(m + "|" + a);
+					if (numCredits == credits.length) credits = Arrays.copyOf(credits, 2 * numCredits);
+					credits[numCredits++] = a;
+				} while (rnd.nextDouble() >= stop);
+			}
+		}
+	}
+
+	/**
+	 * A buffered UTF-8 writer for a file in the directory
+	 */
+	private static PrintWriter writer(String dir, String name) throws IOException {
+		return new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(dir, name)), StandardCharsets.UTF_8), 1 << 16));
+	}
+
+	/**
+	 * Usage: java SyntheticInputs <dir> <scale> [seed]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: java SyntheticInputs <dir> <scale> [seed]");
+			return;
+		}
+		generate(args[0], Double.parseDouble(args[1]), args.length > 2 ? Long.parseLong(args[2]) : 1);
+	}
+}
@@ -0,0 +1,251 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Bounded cache of shortest path trees keyed by center, so that going back to a recent center needs no search
+ * Least recently used trees are evicted once there are more than a set number of them, or once their estimated
+ * size passes a set number of bytes (whichever comes first); the one just used is always kept
+ * Trees handed out are shared, so they must not be refilled by the caller
+ * A miss searches outside the cache's lock, so other lookups (hits, and misses on other centers) go ahead
+ * meanwhile; lookups of a center already being searched wait for that search instead of running their own
+ * Over an IndexedAdjacencyGraph the cache can listen for changes to the graph its engine searches, and repairs
+ * the cached trees in place as each edge comes or goes (see TreeRepair), moving just the vertices whose
+ * distance changes; a tree is only dropped, to be searched again when next asked for, if more than a quarter of
+ * it hangs from a removed edge
+ * A cache can also start off with another cache's trees (copies, or the trees themselves), over another version of
+ * the same graph
+ * The cache is thread safe, so one cache can serve several threads; the lock is held only to look up, add and
+ * evict trees, and while repairing them
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class TreeCache<V,E> implements GraphListener {
+	private final PathSearch<V,E> engine;
+	private final int maxEntries;
+	private final long maxBytes;
+	private final LinkedHashMap<V, ShortestPathTree<V,E>> trees;	// in access order, least recently used first
+	private final Map<V, CompletableFuture<ShortestPathTree<V,E>>> searches = new HashMap<V, CompletableFuture<ShortestPathTree<V,E>>>();	// center -> search under way
+	private long bytes = 0;					// estimated size of the cached trees
+	private long hits = 0, misses = 0, evictions = 0, repairs = 0, invalidations = 0;
+
+	/**
+	 * Cache bounded by number of trees only
+	 * @param engine		search that builds the trees on a miss
+	 * @param maxEntries	most trees to keep
+	 */
+	public TreeCache(PathSearch<V,E> engine, int maxEntries) {
+		this(engine, maxEntries, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param engine		search that builds the trees on a miss
+	 * @param maxEntries	most trees to keep
+	 * @param maxBytes		most bytes (as estimated by ShortestPathTree.estimatedBytes) to keep
+	 */
+	public TreeCache(PathSearch<V,E> engine, int maxEntries, long maxBytes) {
+		if (maxEntries < 1) throw new IllegalArgumentException("Cache must hold at least one tree");
+		this.engine = engine;
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		trees = new LinkedHashMap<V, ShortestPathTree<V,E>>(16, 0.75f, true);
+	}
+
+	/**
+	 * The shortest path tree rooted at a center, searching for it only if it isn't cached or already being
+	 * searched for; waiting on another thread's search counts as a hit
+	 * @param center	vertex in the engine's graph
+	 */
+	public ShortestPathTree<V,E> get(V center) {
+		CompletableFuture<ShortestPathTree<V,E>> search;
+		boolean waiting;
+		synchronized (this) {
+			ShortestPathTree<V,E> tree = trees.get(center);	// marks it most recently used
+			if (tree != null) {
+				hits++;
+				return tree;
+			}
+			search = searches.get(center);
+			waiting = search != null;
+			if (waiting) hits++;
+			else {
+				misses++;
+				search = new CompletableFuture<ShortestPathTree<V,E>>();
+				searches.put(center, search);
+			}
+		}
+		if (waiting) {
+			try {
+				return search.join();
+			}
+			catch (CompletionException e) {	// pass on what went wrong with the other thread's search
+				if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+				if (e.getCause() instanceof Error) throw (Error) e.getCause();
+				throw e;
+			}
+		}
+		// Search without the lock, then add the tree and hand it to any waiters
+		ShortestPathTree<V,E> tree;
+		try {
+			tree = engine.bfs(center);
+		}
+		catch (Throwable e) {
+			synchronized (this) {
+				searches.remove(center);
+			}
+			search.completeExceptionally(e);
+			throw e;
+		}
+		synchronized (this) {
+			searches.remove(center);
+			trees.put(center, tree);
+			bytes += tree.estimatedBytes();
+			evict();
+		}
+		search.complete(tree);
+		return tree;
+	}
+
+	/**
+	 * Drops every cached tree (e.g. once the graph has changed); the counters are kept
+	 */
+	public synchronized void clear() {
+		trees.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Starts the cache off with copies of another cache's trees (least recently used first, as far as the limits
+	 * allow), over this cache's graph, which must number the vertices the same way; the counters carry on from the
+	 * other cache's, and its trees are left as they were, for whoever is still reading them
+	 */
+	synchronized void carryOver(TreeCache<V,E> from) {
+		take(from, true);
+	}
+
+	/**
+	 * Takes over another cache's trees, moving them onto this cache's graph, which must number the vertices the same
+	 * way (as when they were repaired over a graph of which this cache's is a snapshot); the counters carry on from
+	 * the other cache's, which is left empty, and must not be in use
+	 */
+	synchronized void adopt(TreeCache<V,E> from) {
+		take(from, false);
+	}
+
+	/**
+	 * Fills the cache with another cache's trees, copied or moved, and carries on its counters
+	 */
+	private void take(TreeCache<V,E> from, boolean copy) {
+		synchronized (from) {
+			for (Map.Entry<V, ShortestPathTree<V,E>> entry : from.trees.entrySet()) {
+				ShortestPathTree<V,E> tree = entry.getValue();
+				if (copy) tree = tree.copyFor(engine.graph());
+				else tree.rebind(engine.graph());
+				trees.put(entry.getKey(), tree);
+				bytes += tree.estimatedBytes();
+			}
+			hits += from.hits;
+			misses += from.misses;
+			evictions += from.evictions;
+			repairs += from.repairs;
+			invalidations += from.invalidations;
+			if (!copy) from.clear();
+		}
+		evict();
+	}
+
+	/**
+	 * A new vertex has no edges yet, so no tree changes
+	 */
+	public void vertexInserted(int id) {
+	}
+
+	/**
+	 * Repairs the trees in which the new edge gives a shorter path to some vertex
+	 */
+	public synchronized void edgeInserted(int u, int v) {
+		IndexedAdjacencyGraph<V,E> g = (IndexedAdjacencyGraph<V,E>) engine.graph();
+		for (ShortestPathTree<V,E> tree : trees.values()) {
+			bytes -= tree.estimatedBytes();		// it may grow to fit new vertices
+			if (TreeRepair.edgeInserted(tree, g, u, v) > 0) repairs++;
+			bytes += tree.estimatedBytes();
+		}
+	}
+
+	/**
+	 * Repairs the trees that used the removed edge, or drops those with too much hanging from it
+	 */
+	public synchronized void edgeRemoved(int u, int v) {
+		IndexedAdjacencyGraph<V,E> g = (IndexedAdjacencyGraph<V,E>) engine.graph();
+		Iterator<ShortestPathTree<V,E>> it = trees.values().iterator();
+		while (it.hasNext()) {
+			ShortestPathTree<V,E> tree = it.next();
+			bytes -= tree.estimatedBytes();
+			int moved = TreeRepair.edgeRemoved(tree, g, u, v, Math.max(1, tree.numVertices() / 4));
+			if (moved < 0) {
+				it.remove();
+				invalidations++;
+			}
+			else {
+				if (moved > 0) repairs++;
+				bytes += tree.estimatedBytes();
+			}
+		}
+	}
+
+	/**
+	 * Evicts least recently used trees until within both limits, keeping at least the most recent one
+	 */
+	private void evict() {
+		Iterator<ShortestPathTree<V,E>> eldest = trees.values().iterator();
+		while (trees.size() > 1 && (trees.size() > maxEntries || bytes > maxBytes)) {
+			bytes -= eldest.next().estimatedBytes();
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/** Number of cached trees */
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	/** Estimated bytes held by the cached trees */
+	public synchronized long bytes() {
+		return bytes;
+	}
+
+	/** Number of lookups answered from the cache */
+	public synchronized long hits() {
+		return hits;
+	}
+
+	/** Number of lookups that needed a search */
+	public synchronized long misses() {
+		return misses;
+	}
+
+	/** Number of trees evicted to stay within the limits */
+	public synchronized long evictions() {
+		return evictions;
+	}
+
+	/** Number of times a cached tree was repaired after the graph changed */
+	public synchronized long repairs() {
+		return repairs;
+	}
+
+	/** Number of trees dropped because too much of them changed with the graph */
+	public synchronized long invalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * Returns a string representation of the cache's occupancy and counters
+	 */
+	public synchronized String toString() {
+		return trees.size() + " trees (" + bytes + " bytes), " + hits + " hits, " + misses + " misses, " + evictions + " evictions, " + repairs + " repairs, " + invalidations + " invalidations";
+	}
+}
@@ -0,0 +1,130 @@
+import java.util.*;
+
+/**
+ * Repairs shortest path trees over an IndexedAdjacencyGraph in place as edges come and go, moving only the
+ * vertices whose distance from the center changes, instead of searching the whole graph again
+ * Adding an edge can only bring vertices closer: if it reaches its far end in fewer steps than before, the
+ * shorter distances spread out from there, breadth first, as far as they improve on what the tree has
+ * Removing an edge matters only if it is a tree edge, and then only to the subtree hanging from it; those
+ * vertices are taken out of the tree, each is offered its best way back in through a neighbor outside the subtree,
+ * and the subtree is searched again from those entry points, in order of distance; anything not reached is cut off
+ * The parents, distances and totals behind SeparationStats are all kept up, so averageSeparation stays exact
+ * Like the graph, a tree must not be read while it is being repaired
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class TreeRepair {
+	/**
+	 * Repairs a tree after an edge was added between u and v
+	 * @return		number of vertices moved
+	 */
+	public static <V,E> int edgeInserted(ShortestPathTree<V,E> tree, IndexedAdjacencyGraph<V,E> g, int u, int v) {
+		tree.grow();
+		int du = tree.distanceOf(u), dv = tree.distanceOf(v);
+		if (du < 0 && dv < 0) return 0;		// neither end reached: still out of reach
+		if (du < 0 || (dv >= 0 && dv < du)) {	// make u the nearer end
+			int t = u;
+			u = v;
+			v = t;
+			t = du;
+			du = dv;
+			dv = t;
+		}
+		if (dv >= 0 && dv <= du + 1) return 0;		// no shorter path through the new edge
+		int[] queue = new int[16];
+		int tail = 0;
+		tree.move(v, u, du + 1);
+		queue[tail++] = v;
+		for (int head = 0; head < tail; head++) {	// spread the improvement, breadth first
+			int x = queue[head], dx = tree.distanceOf(x);
+			int[] adjacent = g.neighbors(x);
+			for (int k = 0; k < g.degree(x); k++) {
+				int y = adjacent[k], dy = tree.distanceOf(y);
+				if (dy < 0 || dy > dx + 1) {
+					tree.move(y, x, dx + 1);
+					if (tail == queue.length) queue = Arrays.copyOf(queue, 2 * tail);
+					queue[tail++] = y;
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Repairs a tree after the edge between u and v was removed, unless too much of the tree hangs from the edge
+	 * for a repair to beat searching again
+	 * @param limit		most vertices to repair
+	 * @return			number of vertices moved (or cut off), or -1 if there were more than limit and the tree
+	 * 					was left as it was
+	 */
+	public static <V,E> int edgeRemoved(ShortestPathTree<V,E> tree, IndexedAdjacencyGraph<V,E> g, int u, int v, int limit) {
+		tree.grow();
+		if (tree.parentOf(v) != u) {	// make u the parent, if it was a tree edge
+			if (tree.parentOf(u) != v) return 0;
+			int t = u;
+			u = v;
+			v = t;
+		}
+		// The subtree that hung from the edge: every vertex whose path went through v
+		BitSet cut = new BitSet(g.numVertices());
+		int[] subtree = new int[16];
+		int size = 0;
+		cut.set(v);
+		subtree[size++] = v;
+		for (int i = 0; i < size; i++) {
+			int x = subtree[i];
+			int[] adjacent = g.neighbors(x);
+			for (int k = 0; k < g.degree(x); k++) {
+				int y = adjacent[k];
+				if (tree.parentOf(y) != x) continue;
+				if (size == limit) return -1;
+				if (size == subtree.length) subtree = Arrays.copyOf(subtree, 2 * size);
+				cut.set(y);
+				subtree[size++] = y;
+			}
+		}
+		// Each cut vertex's best way back in, through a neighbor still in the tree, in order of distance
+		long[] entries = new long[size];		// distance in the high half, position in the subtree in the low half
+		int[] entryParents = new int[size];
+		int numEntries = 0;
+		for (int i = 0; i < size; i++) {
+			int x = subtree[i], best = -1;
+			int[] adjacent = g.neighbors(x);
+			for (int k = 0; k < g.degree(x); k++) {
+				int y = adjacent[k];
+				if (!cut.get(y) && tree.distanceOf(y) >= 0 && (best < 0 || tree.distanceOf(y) < tree.distanceOf(best))) best = y;
+			}
+			if (best >= 0) {
+				entryParents[i] = best;
+				entries[numEntries++] = (long) (tree.distanceOf(best) + 1) << 32 | i;
+			}
+		}
+		Arrays.sort(entries, 0, numEntries);
+		for (int i = 0; i < size; i++) tree.move(subtree[i], -1, -1);
+		// Search the subtree again, taking each entry point in turn once the search gets as far as it
+		int[] queue = new int[size];
+		int head = 0, tail = 0, next = 0;
+		while (next < numEntries || head < tail) {
+			if (next < numEntries && (head == tail || (int) (entries[next] >>> 32) <= tree.distanceOf(queue[head]) + 1)) {
+				long entry = entries[next++];
+				int i = (int) entry, x = subtree[i];
+				if (tree.distanceOf(x) < 0) {	// not already reached from an earlier entry
+					tree.move(x, entryParents[i], (int) (entry >>> 32));
+					queue[tail++] = x;
+				}
+			}
+			else {
+				int x = queue[head++], dx = tree.distanceOf(x);
+				int[] adjacent = g.neighbors(x);
+				for (int k = 0; k < g.degree(x); k++) {
+					int y = adjacent[k];
+					if (cut.get(y) && tree.distanceOf(y) < 0) {
+						tree.move(y, x, dx + 1);
+						queue[tail++] = y;
+					}
+				}
+			}
+		}
+		return size;
+	}
+}
@@ -0,0 +1,137 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Numbered versions of an IndexedAdjacencyGraph, so that one writer can change the graph while any number of
+ * readers search it, none of them blocking or seeing a change half made
+ * The writer changes the working graph, and publishes a version once a batch of changes is complete; each
+ * version is a read-only snapshot of the graph, sharing all it can with the versions before and after it (see
+ * IndexedAdjacencyGraph.snapshot), so publishing costs time proportional to the number of chunks, not edges
+ * A reader pins the current version for as long as it reads (e.g. for one command), and unpins it when done;
+ * an old version is kept for as long as someone has it pinned, and once unpinned, and no longer referred to,
+ * it is reclaimed by the garbage collector like any other object, so there is nothing to free by hand
+ * The pins are counted so the versions still held by readers can be watched
+ *
+ * @param <V>	the type of vertices
+ * @param <E>	the type of edge labels
+ *
+ * @author Yakoob Khan & Aadil Islam
+ */
+public class VersionedGraph<V,E> {
+	private final IndexedAdjacencyGraph<V,E> working;		// the writer's graph
+	private volatile Snapshot<V,E> current;				// the version readers get
+	private final Set<Snapshot<V,E>> retired = ConcurrentHashMap.newKeySet();	// old versions still pinned
+
+	/**
+	 * Starts with the graph as it is as version 0
+	 * @param working	the graph the writer changes
+	 */
+	public VersionedGraph(IndexedAdjacencyGraph<V,E> working) {
+		this.working = working;
+		current = new Snapshot<V,E>(this, 0, working.snapshot());
+	}
+
+	/** The graph the writer changes; only the writer may use it */
+	public IndexedAdjacencyGraph<V,E> working() {
+		return working;
+	}
+
+	/** The latest version, without pinning it */
+	public Snapshot<V,E> current() {
+		return current;
+	}
+
+	/**
+	 * The latest version, pinned until the caller unpins it
+	 */
+	public Snapshot<V,E> pin() {
+		Snapshot<V,E> snapshot = current;
+		snapshot.pin();
+		return snapshot;
+	}
+
+	/**
+	 * Makes the working graph as it is now the latest version, for readers pinning from now on; readers with an
+	 * older version pinned carry on with it undisturbed
+	 * Only the writer may publish
+	 * @return		the new version
+	 */
+	public Snapshot<V,E> publish() {
+		Snapshot<V,E> old = current;
+		current = new Snapshot<V,E>(this, old.version + 1, working.snapshot());
+		old.retire();
+		return current;
+	}
+
+	/** Number of old versions that readers still have pinned */
+	public int numPinned() {
+		return retired.size();
+	}
+
+	/**
+	 * One version of the graph, read-only, with a count of the readers that have it pinned
+	 *
+	 * @param <V>	the type of vertices
+	 * @param <E>	the type of edge labels
+	 */
+	public static class Snapshot<V,E> {
+		private final VersionedGraph<V,E> owner;
+		private final int version;
+		private final IndexedAdjacencyGraph<V,E> graph;
+		private final AtomicInteger pins = new AtomicInteger();
+		private volatile boolean retired = false;		// whether a later version has been published
+
+		private Snapshot(VersionedGraph<V,E> owner, int version, IndexedAdjacencyGraph<V,E> graph) {
+			this.owner = owner;
+			this.version = version;
+			this.graph = graph;
+		}
+
+		/** Number of versions published before this one */
+		public int version() {
+			return version;
+		}
+
+		/** The graph as of this version */
+		public IndexedAdjacencyGraph<V,E> graph() {
+			return graph;
+		}
+
+		/** Number of readers that have this version pinned */
+		public int pins() {
+			return pins.get();
+		}
+
+		/**
+		 * Pins the version, as one more reader; a version retired just before being pinned is still whole, so it is
+		 * simply counted again as held
+		 */
+		public void pin() {
+			if (pins.incrementAndGet() == 1 && retired) owner.retired.add(this);
+		}
+
+		/**
+		 * Unpins the version, as one reader fewer; once an old version has no readers left, it is let go
+		 */
+		public void unpin() {
+			if (pins.decrementAndGet() == 0 && retired) owner.retired.remove(this);
+		}
+
+		/**
+		 * Marks the version old, keeping track of it only while it is pinned
+		 */
+		private void retire() {
+			retired = true;
+			owner.retired.add(this);
+			if (pins.get() == 0) owner.retired.remove(this);
+		}
+
+		/**
+		 * Returns a string representation of the version number and its pins.
+		 */
+		public String toString() {
+			return "version " + version + " (" + pins.get() + " pins)";
+		}
+	}
+}